@@ -1,4 +1,4 @@
-import org.gradle.api.JavaVersion.VERSION_1_8
+import org.gradle.api.JavaVersion.VERSION_11
 
 plugins {
     application
@@ -10,7 +10,7 @@ version = "1.0.0"
 description = "An example for the Javacord library."
 
 java {
-    sourceCompatibility = VERSION_1_8
+    sourceCompatibility = VERSION_11
 }
 
 // Javacord is on Maven central
@@ -24,10 +24,67 @@ dependencies {
     implementation("org.apache.logging.log4j:log4j-api:2.17.2")
     implementation("io.github.cdimascio:dotenv-java:3.0.0")
     implementation("mysql:mysql-connector-java:8.0.32")
+    implementation("com.zaxxer:HikariCP:4.0.3")
     implementation ("com.fasterxml.jackson.core:jackson-databind:2.15.2")
     runtimeOnly("org.apache.logging.log4j:log4j-core:2.17.2")
+    // HikariCP logs through SLF4J, route it into Log4J
+    runtimeOnly("org.apache.logging.log4j:log4j-slf4j-impl:2.17.2")
 }
 
 application {
     mainClass.set("org.javacord.Discord302Party.Main")
 }
+
+// Micro benchmarks live in their own source set so they never end up in the bot's jar
+sourceSets {
+    create("benchmark") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
+}
+
+dependencies {
+    // Embedded database, in MySQL mode, for the synthetic clan
+    "benchmarkImplementation"("com.h2database:h2:2.2.224")
+    "benchmarkImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "benchmarkAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.register<JavaExec>("benchmarkWomDecoding") {
+    description = "Compares tree and streaming decoding of a WOM group payload."
+    group = "benchmark"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass.set("org.javacord.Discord302Party.service.WomDecodingBenchmark")
+}
+
+tasks.register<JavaExec>("runApiStandIn") {
+    description = "Serves recorded WOM and GE Tracker responses on localhost."
+    group = "benchmark"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass.set("org.javacord.Discord302Party.standin.ApiStandInServer")
+}
+
+tasks.register<JavaExec>("generateSyntheticClan") {
+    description = "Fills a database with a synthetic clan and writes matching WOM fixtures."
+    group = "benchmark"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass.set("org.javacord.Discord302Party.synthetic.SyntheticClanGenerator")
+}
+
+// Runs the JMH benchmarks with the allocation profiler and writes build/jmh/results.json. Arguments given with --args
+// are added to those, e.g. gradle jmh --args="WomParsing -f 1".
+// The services read their settings with Dotenv.load(), the runs get an empty .env so no real one is needed.
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks and reports ops/s and allocation rates."
+    group = "benchmark"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val jmhDir = layout.buildDirectory.dir("jmh").get().asFile
+    workingDir = jmhDir
+    doFirst {
+        // --args replaces the task's arguments, so the defaults go in front of them here
+        setArgs(listOf("-prof", "gc", "-rf", "json", "-rff", "results.json") + args.orEmpty())
+        jmhDir.mkdirs()
+        jmhDir.resolve(".env").createNewFile()
+    }
+}
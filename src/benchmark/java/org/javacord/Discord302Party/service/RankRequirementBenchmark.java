@@ -0,0 +1,65 @@
+package org.javacord.Discord302Party.service;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.synthetic.SyntheticClanGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full {@link RankRequirementUpdater#validateAllRankRequirements()} pass over a synthetic clan in an in-memory H2
+ * database. After the first pass every met requirement is already logged, so this is the steady state of the periodic
+ * pass. It measures the bot's queries and evaluation against H2, not MySQL, so compare runs with each other rather than
+ * with production timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RankRequirementBenchmark {
+
+    @Param({"250"})
+    public int members;
+
+    private JdbcConnectionPool pool;
+    private RankRequirementUpdater updater;
+
+    @Setup(Level.Trial)
+    public void createClan() throws SQLException {
+        pool = JdbcConnectionPool.create(
+                "jdbc:h2:mem:rank-requirements;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+        try (Connection connection = pool.getConnection()) {
+            new SyntheticClanGenerator(302, members, 0.85, 1, 40).generate(connection);
+        }
+        Database.useDataSource(pool);
+        updater = new RankRequirementUpdater();
+    }
+
+    @TearDown(Level.Trial)
+    public void dropClan() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public void validateAllRankRequirements() {
+        updater.validateAllRankRequirements();
+    }
+}
@@ -0,0 +1,143 @@
+package org.javacord.Discord302Party.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.database.RankLadder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares decoding a WOM group payload the old way (read the body into a String, readTree, walk the tree) with
+ * {@link WomJsonDecoder#decodeGroupMembers}. Pass the path of a recorded {@code /groups/<id>} response, or a member
+ * count to decode a generated payload of that size:
+ * <pre>
+ * gradle benchmarkWomDecoding --args="recorded-group.json"
+ * gradle benchmarkWomDecoding --args="20000"
+ * </pre>
+ */
+public class WomDecodingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private static final String[] ROLES = {"member", "corporal", "sergeant", "lieutenant", "captain", "general",
+            "competitor", "slayer", "skiller", "administrator"};
+
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : "10000";
+        byte[] payload = source.matches("\\d+")
+                ? generateGroupPayload(Integer.parseInt(source))
+                : Files.readAllBytes(Paths.get(source));
+
+        int expected = decodeTree(payload).size();
+        if (decodeStreaming(payload).size() != expected) {
+            throw new IllegalStateException("Tree and streaming decoding disagree on the member count");
+        }
+        System.out.printf("Payload: %d members, %d KB%n", expected, payload.length / 1024);
+
+        report("tree", payload, WomDecodingBenchmark::decodeTree);
+        report("streaming", payload, WomDecodingBenchmark::decodeStreaming);
+    }
+
+    private interface Decoder {
+        List<Member> decode(byte[] payload) throws IOException;
+    }
+
+    private static void report(String name, byte[] payload, Decoder decoder) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decoder.decode(payload);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            decoder.decode(payload);
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        System.out.printf("%-10s %8.2f ms/op %8.1f ops/s %10.1f KB allocated/op%n", name,
+                elapsed / 1_000_000.0 / MEASURED_ROUNDS,
+                MEASURED_ROUNDS / (elapsed / 1_000_000_000.0),
+                allocated / 1024.0 / MEASURED_ROUNDS);
+    }
+
+    private static List<Member> decodeStreaming(byte[] payload) throws IOException {
+        return WomJsonDecoder.decodeGroupMembers(new ByteArrayInputStream(payload));
+    }
+
+    // The decoding path the bot used before WomJsonDecoder, kept here as the baseline
+    private static List<Member> decodeTree(byte[] payload) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        StringBuilder content = new StringBuilder();
+        String inputLine;
+        while ((inputLine = in.readLine()) != null) {
+            content.append(inputLine);
+        }
+        in.close();
+
+        List<Member> members = new ArrayList<>();
+        JsonNode root = new ObjectMapper().readTree(content.toString());
+        JsonNode memberships = root.get("memberships");
+        if (memberships != null && memberships.isArray()) {
+            for (JsonNode membership : memberships) {
+                JsonNode player = membership.get("player");
+                int womId = player.get("id").asInt();
+                String username = player.get("username").asText();
+                String role = membership.get("role").asText();
+                Timestamp rankObtained = Timestamp.valueOf(membership.get("updatedAt").asText().replace("T", " ").replace("Z", ""));
+                Timestamp joinDate = Timestamp.valueOf(membership.get("createdAt").asText().replace("T", " ").replace("Z", ""));
+                if (RankLadder.isTemporaryRank(role)) {
+                    members.add(new Member(womId, username, null, rankObtained, joinDate, role));
+                } else {
+                    members.add(new Member(womId, username, role, rankObtained, joinDate, null));
+                }
+            }
+        }
+        return members;
+    }
+
+    // Builds a group details response shaped like the WOM v2 API, player objects included
+    private static byte[] generateGroupPayload(int memberCount) {
+        StringBuilder json = new StringBuilder(memberCount * 700);
+        json.append("{\"id\":1234,\"name\":\"302 Party\",\"clanChat\":\"302 Party\",\"memberCount\":")
+                .append(memberCount).append(",\"memberships\":[");
+        for (int i = 0; i < memberCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String date = String.format("20%02d-%02d-%02dT%02d:%02d:%02d.000Z",
+                    18 + i % 7, 1 + i % 12, 1 + i % 28, i % 24, i % 60, (i * 7) % 60);
+            json.append("{\"playerId\":").append(100000 + i)
+                    .append(",\"groupId\":1234,\"role\":\"").append(ROLES[i % ROLES.length])
+                    .append("\",\"createdAt\":\"").append(date)
+                    .append("\",\"updatedAt\":\"").append(date)
+                    .append("\",\"player\":{\"id\":").append(100000 + i)
+                    .append(",\"username\":\"player ").append(i)
+                    .append("\",\"displayName\":\"Player ").append(i)
+                    .append("\",\"type\":\"regular\",\"build\":\"main\",\"country\":null,\"status\":\"active\",\"patron\":false")
+                    .append(",\"exp\":").append(1_000_000L * (i % 200))
+                    .append(",\"ehp\":").append(i % 1500).append(".25,\"ehb\":").append(i % 700).append(".5")
+                    .append(",\"ttm\":").append(i % 900).append(".75,\"tt200m\":").append(20000 + i % 5000).append(".1")
+                    .append(",\"registeredAt\":\"").append(date)
+                    .append("\",\"updatedAt\":\"").append(date)
+                    .append("\",\"lastChangedAt\":\"").append(date)
+                    .append("\",\"lastImportedAt\":null}}");
+        }
+        json.append("],\"verified\":true,\"score\":0}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package org.javacord.Discord302Party.service;
+
+import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of WOM responses as the bot does it. {@code payload} is the bundled group fixture by default, pass
+ * {@code -p payload=<file>} to run on a recorded response or on the output of {@code generateSyntheticClan}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WomParsingBenchmark {
+
+    // Ranks as they come out of a group: mostly regular ranks, some temporary ones and different casing
+    private static final String[] ROLES = {"recruit", "Corporal", "sergeant", "lieutenant", "slayer", "captain",
+            "general", "skiller", "owner", "Competitor", "deputy_owner", "hunter", "administrator", "MONARCH"};
+
+    private static final String[] TIMESTAMPS = {"2024-05-01T12:30:00.000Z", "2022-01-01T00:00:00.000Z",
+            "2023-11-17T08:04:59.123Z", "2020-03-02T18:00:00.000Z"};
+
+    @Param({"fixture"})
+    public String payload;
+
+    private final WOMClientService womClientService = new WOMClientService();
+    private String groupJson;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadPayload() throws IOException {
+        if (payload.equals("fixture")) {
+            try (InputStream in = WomParsingBenchmark.class.getResourceAsStream("/fixtures/wom/groups/_.json")) {
+                groupJson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            groupJson = Files.readString(Paths.get(payload));
+        }
+        if (womClientService.parseGroupMembers(groupJson).isEmpty()) {
+            throw new IllegalStateException("The payload has no members: " + payload);
+        }
+    }
+
+    @Benchmark
+    public List<Member> parseGroupMembers() {
+        return womClientService.parseGroupMembers(groupJson);
+    }
+
+    @Benchmark
+    public boolean isTemporaryRank() {
+        return RankLadder.isTemporaryRank(ROLES[next++ % ROLES.length]);
+    }
+
+    @Benchmark
+    public void isTemporaryRankAllRoles(Blackhole blackhole) {
+        for (String role : ROLES) {
+            blackhole.consume(RankLadder.isTemporaryRank(role));
+        }
+    }
+
+    @Benchmark
+    public Timestamp parseTimestamp() {
+        return WomJsonDecoder.parseTimestamp(TIMESTAMPS[next++ % TIMESTAMPS.length]);
+    }
+}
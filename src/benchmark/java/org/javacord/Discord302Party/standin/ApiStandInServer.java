@@ -0,0 +1,265 @@
+package org.javacord.Discord302Party.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves recorded Wise Old Man and GE Tracker responses on localhost so syncs and lookups can be measured without
+ * the network. Point the bot at it with
+ * <pre>
+ * WOM_BASE_URL=http://localhost:8089/wom
+ * GE_TRACKER_BASE_URL=http://localhost:8089/ge-tracker
+ * </pre>
+ * and start it with {@code gradle runApiStandIn --args="--latency-ms 150 --error-rate 0.02 --scale 10"}.
+ * <p>
+ * A request is answered from {@code <api>/<path>.json} under the fixtures directory. If there is no exact match the
+ * numeric path segments, and then the last segment, are replaced with {@code _}, so {@code /wom/groups/1234/activity}
+ * falls back to {@code wom/groups/_/activity.json} and {@code /ge-tracker/items/search/whip} to
+ * {@code ge-tracker/items/search/_.json}. The bundled fixtures are used unless {@code --fixtures <dir>} is given.
+ * <p>
+ * Options:
+ * <ul>
+ *     <li>{@code --port}: port to listen on, 8089 by default.</li>
+ *     <li>{@code --latency-ms} and {@code --jitter-ms}: delay before every response.</li>
+ *     <li>{@code --error-rate}: share of requests, 0 to 1, answered with a 503.</li>
+ *     <li>{@code --scale}: repeats every list in a response this many times with unique ids and names, to simulate a
+ *     larger clan.</li>
+ * </ul>
+ * Array responses honour {@code limit} and {@code offset}, so paging behaves like the real APIs.
+ */
+public class ApiStandInServer {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path fixtureDirectory;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final int scale;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ApiStandInServer(Path fixtureDirectory, long latencyMs, long jitterMs, double errorRate, int scale) {
+        this.fixtureDirectory = fixtureDirectory;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.scale = Math.max(1, scale);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+        Path fixtures = options.containsKey("fixtures") ? Paths.get(options.get("fixtures")) : null;
+        ApiStandInServer standIn = new ApiStandInServer(fixtures,
+                Long.parseLong(options.getOrDefault("latency-ms", "0")),
+                Long.parseLong(options.getOrDefault("jitter-ms", "0")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("scale", "1")));
+
+        HttpServer server = standIn.start(port);
+        System.out.printf("Serving %s on http://localhost:%d/wom and http://localhost:%d/ge-tracker%n",
+                fixtures != null ? fixtures : "the bundled fixtures", port, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            System.out.printf("Served %d responses, %d injected errors%n", standIn.served.get(), standIn.failed.get());
+        }));
+    }
+
+    public HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        // Every request sleeps through its latency on its own thread, like a real server answering concurrently
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/wom", exchange -> handle(exchange, "wom"));
+        server.createContext("/ge-tracker", exchange -> handle(exchange, "ge-tracker"));
+        server.start();
+        return server;
+    }
+
+    private void handle(HttpExchange exchange, String api) throws IOException {
+        try {
+            long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                respond(exchange, 503, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath().substring(api.length() + 1);
+            byte[] fixture = findFixture(api, path);
+            if (fixture == null) {
+                respond(exchange, 404, "{\"message\":\"No fixture for " + api + path + "\"}");
+                return;
+            }
+
+            JsonNode body = scale(objectMapper.readTree(fixture));
+            body = page(body, queryParameters(exchange.getRequestURI().getRawQuery()));
+            served.incrementAndGet();
+            respond(exchange, 200, objectMapper.writeValueAsString(body));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] findFixture(String api, String path) throws IOException {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+
+        List<String> numericReplaced = new ArrayList<>();
+        for (String segment : segments) {
+            numericReplaced.add(segment.matches("\\d+") ? "_" : segment);
+        }
+        List<String> lastReplaced = new ArrayList<>(numericReplaced);
+        if (!lastReplaced.isEmpty()) {
+            lastReplaced.set(lastReplaced.size() - 1, "_");
+        }
+
+        for (List<String> candidate : List.of(segments, numericReplaced, lastReplaced)) {
+            byte[] fixture = readFixture(api + "/" + String.join("/", candidate) + ".json");
+            if (fixture != null) {
+                return fixture;
+            }
+        }
+        return null;
+    }
+
+    private byte[] readFixture(String name) throws IOException {
+        if (fixtureDirectory != null) {
+            Path file = fixtureDirectory.resolve(name).normalize();
+            return file.startsWith(fixtureDirectory) && Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        }
+        try (InputStream in = ApiStandInServer.class.getResourceAsStream("/fixtures/" + name)) {
+            return in != null ? in.readAllBytes() : null;
+        }
+    }
+
+    // Repeats the top level list, or every list directly under the top level object, with unique ids and names
+    private JsonNode scale(JsonNode body) {
+        if (scale == 1) {
+            return body;
+        }
+        if (body.isArray()) {
+            return scaleArray((ArrayNode) body);
+        }
+        if (body.isObject()) {
+            ObjectNode object = (ObjectNode) body;
+            List<String> arrayFields = new ArrayList<>();
+            object.fieldNames().forEachRemaining(field -> {
+                if (object.get(field).isArray()) {
+                    arrayFields.add(field);
+                }
+            });
+            for (String field : arrayFields) {
+                object.set(field, scaleArray((ArrayNode) object.get(field)));
+            }
+        }
+        return body;
+    }
+
+    private ArrayNode scaleArray(ArrayNode original) {
+        ArrayNode scaled = objectMapper.createArrayNode();
+        scaled.addAll(original);
+        for (int copy = 1; copy < scale; copy++) {
+            for (JsonNode element : original) {
+                JsonNode duplicate = element.deepCopy();
+                makeUnique(duplicate, copy);
+                scaled.add(duplicate);
+            }
+        }
+        return scaled;
+    }
+
+    private void makeUnique(JsonNode node, int copy) {
+        if (!node.isObject()) {
+            return;
+        }
+        ObjectNode object = (ObjectNode) node;
+        List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+        object.fields().forEachRemaining(entries::add);
+        for (Map.Entry<String, JsonNode> field : entries) {
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            if (value.isObject()) {
+                makeUnique(value, copy);
+            } else if (value.isIntegralNumber() && (name.equals("id") || name.endsWith("Id"))) {
+                object.put(name, value.asLong() + copy * 1_000_000L);
+            } else if (value.isTextual() && (name.equals("username") || name.equals("displayName") || name.equals("name")
+                    || name.equals("oldName") || name.equals("newName"))) {
+                object.put(name, value.asText() + " " + copy);
+            }
+        }
+    }
+
+    private static JsonNode page(JsonNode body, Map<String, String> query) {
+        if (!body.isArray() || !(query.containsKey("limit") || query.containsKey("offset"))) {
+            return body;
+        }
+        int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+        int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(body.size())));
+        ArrayNode page = objectMapper.createArrayNode();
+        for (int i = offset; i < Math.min(body.size(), offset + limit); i++) {
+            page.add(body.get(i));
+        }
+        return page;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package org.javacord.Discord302Party.synthetic;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.javacord.Discord302Party.database.SchemaMigrations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills a database with a synthetic clan so the hot paths (rank validation, user verification, the rank-up window
+ * query, the points limit checks) can be measured at many times our real size. Writes matching WOM fixtures for
+ * {@link org.javacord.Discord302Party.standin.ApiStandInServer} next to it.
+ * <pre>
+ * gradle generateSyntheticClan --args="--members 20000 --years 3"
+ * </pre>
+ * By default the data goes to an embedded H2 database in MySQL mode under {@code build/synthetic}. H2 doesn't run every
+ * MySQL-only query the bot uses (REGEXP casts, DATE_FORMAT, information_schema), so for end to end runs point
+ * {@code --jdbc-url} at an empty local MySQL or MariaDB database instead; the tables are created if they don't exist.
+ * <p>
+ * Options: {@code --members}, {@code --linked} (share of members with a linked Discord account), {@code --years} of
+ * points history, {@code --transactions} per member per year, {@code --seed}, {@code --jdbc-url}, {@code --user},
+ * {@code --password} and {@code --fixtures} (output directory).
+ */
+public class SyntheticClanGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+
+    // The rank ladder, lowest first, with the points needed for each and the weekly giving budget
+    private static final String[] LADDER = {"recruit", "corporal", "sergeant", "lieutenant", "captain", "general",
+            "officer", "commander", "colonel", "brigadier", "admiral", "marshal"};
+    private static final int[] LADDER_POINTS = {0, 100, 300, 750, 1500, 3000, 5000, 8000, 12000, 18000, 26000, 36000};
+    private static final int[] LADDER_BUDGET = {50, 100, 150, 200, 300, 400, 500, 650, 800, 1000, 1250, 1500};
+    private static final String[] STAFF_RANKS = {"owner", "deputy_owner", "moderator"};
+    private static final String[] TEMPORARY_RANKS = {"competitor", "slayer", "skiller", "magician", "ranger", "miner"};
+
+    private static final int[] GIFT_AMOUNTS = {5, 10, 15, 25, 50, 100, 250};
+    private static final int[] GIFT_WEIGHTS = {20, 30, 15, 15, 10, 7, 3};
+    private static final String[] REASONS = {"Raid carry", "Bingo win", "Event help", "Drop party", "Mentoring",
+            "Clan event", "Being awesome", "Giveaway host", "Skill of the week"};
+
+    private final Random random;
+    private final int memberCount;
+    private final double linkedShare;
+    private final int years;
+    private final int transactionsPerMemberYear;
+    private final long now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+
+    // Members, sorted by join date
+    private String[] usernames;
+    private long[] joinDates;
+    private double[] cumulativeActivity;
+    private int[] points;
+    private int[] givenThisWeek;
+    private String[] ranks;
+    private long[] discordUids;
+
+    public SyntheticClanGenerator(long seed, int memberCount, double linkedShare, int years, int transactionsPerMemberYear) {
+        this.random = new Random(seed);
+        this.memberCount = memberCount;
+        this.linkedShare = linkedShare;
+        this.years = years;
+        this.transactionsPerMemberYear = transactionsPerMemberYear;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        SyntheticClanGenerator generator = new SyntheticClanGenerator(
+                Long.parseLong(options.getOrDefault("seed", "302")),
+                Integer.parseInt(options.getOrDefault("members", "5000")),
+                Double.parseDouble(options.getOrDefault("linked", "0.85")),
+                Integer.parseInt(options.getOrDefault("years", "3")),
+                Integer.parseInt(options.getOrDefault("transactions", "40")));
+
+        String jdbcUrl = options.getOrDefault("jdbc-url",
+                "jdbc:h2:file:./build/synthetic/clan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE");
+        Path fixtures = Paths.get(options.getOrDefault("fixtures", "build/synthetic/fixtures"));
+
+        long started = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl,
+                options.getOrDefault("user", "sa"), options.getOrDefault("password", ""))) {
+            generator.generate(connection);
+        }
+        generator.writeWomFixtures(fixtures);
+        System.out.printf("Done in %.1f s%n", (System.nanoTime() - started) / 1_000_000_000.0);
+    }
+
+    public void generate(Connection connection) throws SQLException {
+        createTables(connection);
+        connection.setAutoCommit(false);
+        try {
+            generateMembers();
+            int transactions = writeTransactions(connection);
+            assignRanks();
+            writeConfig(connection);
+            Map<String, List<Integer>> requirementIds = writeRankRequirements(connection);
+            writeMembers(connection);
+            int linked = writeDiscordUsers(connection);
+            writeValidations(connection, requirementIds);
+            connection.commit();
+            System.out.printf("Generated %d members, %d linked users and %d points transactions over %d years%n",
+                    memberCount, linked, transactions, years);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private void createTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS config ("
+                    + "`rank` VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + "rank_order INT NOT NULL, "
+                    + "total_points INT NOT NULL DEFAULT 0)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS members ("
+                    + "username VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    // As SchemaMigrations makes it, H2 just has no STORED keyword
+                    + "canonical_name VARCHAR(64) GENERATED ALWAYS AS (" + SchemaMigrations.canonicalNameExpression("username") + "), "
+                    + "WOM_id INT NULL, "
+                    + "`rank` VARCHAR(64) NULL, "
+                    + "joinDate DATETIME NULL, "
+                    + "last_rank_update DATETIME NULL, "
+                    + "last_WOM_update DATETIME NULL, "
+                    + "points INT NOT NULL DEFAULT 0, "
+                    + "given_points INT NOT NULL DEFAULT 0)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS discord_users ("
+                    + "discord_uid BIGINT NOT NULL PRIMARY KEY, "
+                    + "character_name VARCHAR(64) NULL, "
+                    + "canonical_name VARCHAR(64) GENERATED ALWAYS AS (" + SchemaMigrations.canonicalNameExpression("character_name") + "), "
+                    + "`rank` VARCHAR(64) NULL, "
+                    + "replit_user_id VARCHAR(64) NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS rank_requirements ("
+                    + "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "`rank` VARCHAR(64) NOT NULL, "
+                    + "requirement_type VARCHAR(64) NOT NULL, "
+                    + "required_value VARCHAR(255) NULL, "
+                    + "specific_rank VARCHAR(64) NULL, "
+                    + "UNIQUE (`rank`, requirement_type))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS points_transactions ("
+                    + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "character_name VARCHAR(64) NOT NULL, "
+                    + "points_change INT NOT NULL, "
+                    + "reason VARCHAR(255) NULL, "
+                    + "timestamp DATETIME NOT NULL, "
+                    + "related_user VARCHAR(64) NULL, "
+                    + "previous_points INT NULL, "
+                    + "new_points INT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS temporary_ranks ("
+                    + "discord_uid BIGINT NOT NULL, "
+                    + "`rank` VARCHAR(64) NOT NULL, "
+                    + "added_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS validation_log ("
+                    + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "character_name VARCHAR(64) NOT NULL, "
+                    + "`rank` VARCHAR(64) NULL, "
+                    + "requirement_id INT NULL, "
+                    + "validated_by VARCHAR(64) NULL, "
+                    + "validation_date DATETIME NULL)");
+        }
+    }
+
+    // Join dates lean towards recent years and activity follows a power law: a few members give most of the points
+    private void generateMembers() {
+        long span = years * 365L * 24 * 60 * 60 * 1000;
+        joinDates = new long[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            joinDates[i] = now - (long) (span * Math.pow(random.nextDouble(), 1.5)) - span / 20;
+        }
+        Arrays.sort(joinDates);
+
+        usernames = new String[memberCount];
+        cumulativeActivity = new double[memberCount];
+        double total = 0;
+        for (int i = 0; i < memberCount; i++) {
+            usernames[i] = String.format("Synth %05d", i);
+            total += 1 / Math.pow(1 - random.nextDouble(), 1 / 1.2);
+            cumulativeActivity[i] = total;
+        }
+        points = new int[memberCount];
+        givenThisWeek = new int[memberCount];
+    }
+
+    // Transactions are written oldest first, so previous_points and new_points follow each member's running balance
+    private int writeTransactions(Connection connection) throws SQLException {
+        long firstJoin = joinDates[0];
+        int count = memberCount * transactionsPerMemberYear * years;
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = firstJoin + (long) (random.nextDouble() * (now - firstJoin));
+        }
+        Arrays.sort(timestamps);
+
+        long weekAgo = now - 7L * 24 * 60 * 60 * 1000;
+        int written = 0;
+        int joined = 0;
+        String sql = "INSERT INTO points_transactions (character_name, points_change, reason, timestamp, related_user, previous_points, new_points) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (long timestamp : timestamps) {
+                while (joined < memberCount && joinDates[joined] <= timestamp) {
+                    joined++;
+                }
+                if (joined < 2) {
+                    continue;
+                }
+                int giver = pickActiveMember(joined);
+                int recipient = pickActiveMember(joined);
+                if (giver == recipient) {
+                    continue;
+                }
+                int amount = pickGiftAmount();
+
+                stmt.setString(1, usernames[recipient]);
+                stmt.setInt(2, amount);
+                stmt.setString(3, REASONS[random.nextInt(REASONS.length)]);
+                stmt.setTimestamp(4, new Timestamp(timestamp));
+                stmt.setString(5, usernames[giver]);
+                stmt.setInt(6, points[recipient]);
+                stmt.setInt(7, points[recipient] + amount);
+                stmt.addBatch();
+
+                points[recipient] += amount;
+                if (timestamp >= weekAgo) {
+                    givenThisWeek[giver] += amount;
+                }
+                if (++written % BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+        return written;
+    }
+
+    private int pickActiveMember(int joined) {
+        double target = random.nextDouble() * cumulativeActivity[joined - 1];
+        int index = Arrays.binarySearch(cumulativeActivity, 0, joined, target);
+        return index >= 0 ? index : Math.min(joined - 1, -index - 1);
+    }
+
+    private int pickGiftAmount() {
+        int total = 0;
+        for (int weight : GIFT_WEIGHTS) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < GIFT_WEIGHTS.length; i++) {
+            roll -= GIFT_WEIGHTS[i];
+            if (roll < 0) {
+                return GIFT_AMOUNTS[i];
+            }
+        }
+        return GIFT_AMOUNTS[0];
+    }
+
+    // Most members hold the rank their points earn them, about one in ten is a rank behind so rank-ups show up
+    private void assignRanks() {
+        ranks = new String[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            int rung = 0;
+            while (rung + 1 < LADDER.length && points[i] >= LADDER_POINTS[rung + 1]) {
+                rung++;
+            }
+            if (rung > 0 && random.nextDouble() < 0.1) {
+                rung--;
+            }
+            ranks[i] = LADDER[rung];
+        }
+        // The longest serving members run the clan
+        for (int i = 0; i < Math.min(memberCount, STAFF_RANKS.length * 2); i++) {
+            ranks[i] = STAFF_RANKS[Math.min(i, STAFF_RANKS.length - 1)];
+        }
+    }
+
+    private void writeConfig(Connection connection) throws SQLException {
+        // rank_order counts down from the top, the staff ranks come first
+        String sql = "INSERT INTO config (`rank`, rank_order, total_points) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < LADDER.length; i++) {
+                stmt.setString(1, LADDER[i]);
+                stmt.setInt(2, STAFF_RANKS.length + LADDER.length - i);
+                stmt.setInt(3, LADDER_BUDGET[i]);
+                stmt.addBatch();
+            }
+            for (int i = 0; i < STAFF_RANKS.length; i++) {
+                stmt.setString(1, STAFF_RANKS[i]);
+                stmt.setInt(2, i + 1);
+                stmt.setInt(3, 2000);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private Map<String, List<Integer>> writeRankRequirements(Connection connection) throws SQLException {
+        String sql = "INSERT INTO rank_requirements (`rank`, requirement_type, required_value) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 1; i < LADDER.length; i++) {
+                addRequirement(stmt, LADDER[i], "Points", String.valueOf(LADDER_POINTS[i]));
+                addRequirement(stmt, LADDER[i], "Time in Clan", String.valueOf(i));
+                if (i >= 3) {
+                    addRequirement(stmt, LADDER[i], "Points from X different players", String.valueOf(i * 3));
+                    addRequirement(stmt, LADDER[i], "Time at Current Rank", String.valueOf(1 + i / 4));
+                }
+                if (i >= 6) {
+                    addRequirement(stmt, LADDER[i], "Points from X different ranks", String.valueOf(i / 2));
+                }
+                if (i >= 9) {
+                    addRequirement(stmt, LADDER[i], "Other", "Approved by the council");
+                }
+            }
+            stmt.executeBatch();
+        }
+
+        Map<String, List<Integer>> requirementIds = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, `rank` FROM rank_requirements")) {
+            while (rs.next()) {
+                requirementIds.computeIfAbsent(rs.getString(2), rank -> new ArrayList<>()).add(rs.getInt(1));
+            }
+        }
+        return requirementIds;
+    }
+
+    private static void addRequirement(PreparedStatement stmt, String rank, String type, String value) throws SQLException {
+        stmt.setString(1, rank);
+        stmt.setString(2, type);
+        stmt.setString(3, value);
+        stmt.addBatch();
+    }
+
+    private void writeMembers(Connection connection) throws SQLException {
+        String sql = "INSERT INTO members (username, WOM_id, `rank`, joinDate, last_rank_update, last_WOM_update, points, given_points) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < memberCount; i++) {
+                long rankUpdate = joinDates[i] + (long) (random.nextDouble() * (now - joinDates[i]));
+                stmt.setString(1, usernames[i]);
+                stmt.setInt(2, womId(i));
+                stmt.setString(3, ranks[i]);
+                stmt.setTimestamp(4, new Timestamp(joinDates[i]));
+                stmt.setTimestamp(5, new Timestamp(rankUpdate));
+                stmt.setTimestamp(6, new Timestamp(now));
+                stmt.setInt(7, points[i]);
+                stmt.setInt(8, givenThisWeek[i]);
+                stmt.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private int writeDiscordUsers(Connection connection) throws SQLException {
+        discordUids = new long[memberCount];
+        int linked = 0;
+        String userSql = "INSERT INTO discord_users (discord_uid, character_name, `rank`) VALUES (?, ?, ?)";
+        String temporarySql = "INSERT INTO temporary_ranks (discord_uid, `rank`, added_date) VALUES (?, ?, ?)";
+        try (PreparedStatement users = connection.prepareStatement(userSql);
+             PreparedStatement temporary = connection.prepareStatement(temporarySql)) {
+            for (int i = 0; i < memberCount; i++) {
+                if (random.nextDouble() >= linkedShare) {
+                    continue;
+                }
+                discordUids[i] = 200_000_000_000_000_000L + i * 7919L;
+                users.setLong(1, discordUids[i]);
+                users.setString(2, usernames[i]);
+                users.setString(3, ranks[i]);
+                users.addBatch();
+
+                // About one in twenty holds a temporary rank, some of them expired
+                if (random.nextDouble() < 0.05) {
+                    temporary.setLong(1, discordUids[i]);
+                    temporary.setString(2, TEMPORARY_RANKS[random.nextInt(TEMPORARY_RANKS.length)]);
+                    temporary.setTimestamp(3, new Timestamp(now - (long) (random.nextDouble() * 60L * 24 * 60 * 60 * 1000)));
+                    temporary.addBatch();
+                }
+                if (++linked % BATCH_SIZE == 0) {
+                    users.executeBatch();
+                    temporary.executeBatch();
+                }
+            }
+            users.executeBatch();
+            temporary.executeBatch();
+        }
+        return linked;
+    }
+
+    // Members have every requirement of the rank they hold validated
+    private void writeValidations(Connection connection, Map<String, List<Integer>> requirementIds) throws SQLException {
+        String sql = "INSERT INTO validation_log (character_name, `rank`, requirement_id, validated_by, validation_date) VALUES (?, ?, ?, ?, ?)";
+        int pending = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < memberCount; i++) {
+                for (int requirementId : requirementIds.getOrDefault(ranks[i], List.of())) {
+                    stmt.setString(1, usernames[i]);
+                    stmt.setString(2, ranks[i]);
+                    stmt.setInt(3, requirementId);
+                    stmt.setString(4, "system");
+                    stmt.setTimestamp(5, new Timestamp(now));
+                    stmt.addBatch();
+                    if (++pending % BATCH_SIZE == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Writes the group, its activity feed and its name changes in the layout {@code ApiStandInServer --fixtures} reads.
+     */
+    public void writeWomFixtures(Path directory) throws IOException {
+        Path groups = directory.resolve("wom/groups");
+        Files.createDirectories(groups.resolve("_"));
+        JsonFactory jsonFactory = new JsonFactory();
+
+        try (JsonGenerator json = jsonFactory.createGenerator(groups.resolve("_.json").toFile(), JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("id", 1234);
+            json.writeStringField("name", "302 Party");
+            json.writeNumberField("memberCount", memberCount);
+            json.writeArrayFieldStart("memberships");
+            for (int i = 0; i < memberCount; i++) {
+                json.writeStartObject();
+                json.writeNumberField("playerId", womId(i));
+                json.writeNumberField("groupId", 1234);
+                json.writeStringField("role", ranks[i]);
+                json.writeStringField("createdAt", isoDate(joinDates[i]));
+                json.writeStringField("updatedAt", isoDate(joinDates[i]));
+                writePlayer(json, i);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+
+        // The newest events first, like the real feed: recent joins and promotions
+        try (JsonGenerator json = jsonFactory.createGenerator(groups.resolve("_/activity.json").toFile(), JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            int events = Math.min(memberCount, 500);
+            for (int e = 0; e < events; e++) {
+                int i = memberCount - 1 - e;
+                boolean joinedRecently = now - joinDates[i] < 30L * 24 * 60 * 60 * 1000;
+                json.writeStartObject();
+                json.writeNumberField("groupId", 1234);
+                json.writeNumberField("playerId", womId(i));
+                json.writeStringField("type", joinedRecently ? "joined" : "changed_role");
+                json.writeStringField("role", ranks[i]);
+                json.writeStringField("createdAt", isoDate(now - e * 60_000L));
+                writePlayer(json, i);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+
+        try (JsonGenerator json = jsonFactory.createGenerator(groups.resolve("_/name-changes.json").toFile(), JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (int i = 0; i < Math.min(memberCount, 50); i++) {
+                json.writeStartObject();
+                json.writeNumberField("id", 90_000 + i);
+                json.writeNumberField("playerId", womId(i));
+                json.writeStringField("oldName", usernames[i] + " old");
+                json.writeStringField("newName", usernames[i]);
+                json.writeStringField("status", "approved");
+                json.writeStringField("createdAt", isoDate(now - i * 3_600_000L));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        System.out.printf("Wrote WOM fixtures to %s%n", directory.toAbsolutePath());
+    }
+
+    private void writePlayer(JsonGenerator json, int i) throws IOException {
+        json.writeObjectFieldStart("player");
+        json.writeNumberField("id", womId(i));
+        json.writeStringField("username", usernames[i].toLowerCase());
+        json.writeStringField("displayName", usernames[i]);
+        json.writeStringField("type", "regular");
+        json.writeStringField("build", "main");
+        json.writeNumberField("exp", 10_000_000L + points[i] * 1000L);
+        json.writeStringField("registeredAt", isoDate(joinDates[i]));
+        json.writeEndObject();
+    }
+
+    private static int womId(int i) {
+        return 500_000 + i;
+    }
+
+    private static String isoDate(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).truncatedTo(ChronoUnit.MILLIS).toString();
+    }
+}
@@ -0,0 +1,41 @@
+package org.javacord.Discord302Party.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rank emoji lookup and name normalization, both run for every member in listings and syncs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilsBenchmark {
+
+    // Hits early and late in the switch, a miss, and names in the shapes players type them
+    private static final String[] RANKS = {"Owner", "monarch", "sage", "TzKal", "recruit", "mentor", "Legend"};
+    private static final String[] NAMES = {"Some_Name", "some-name", " SOME  NAME ", "Zezima", "iron btw 42"};
+
+    private int next;
+
+    @Benchmark
+    public String getCustomEmoji() {
+        return Utils.getCustomEmoji(RANKS[next++ % RANKS.length]);
+    }
+
+    @Benchmark
+    public String canonicalizeName() {
+        return Utils.canonicalizeName(NAMES[next++ % NAMES.length]);
+    }
+}
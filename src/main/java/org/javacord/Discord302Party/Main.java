@@ -4,9 +4,16 @@ import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.javacord.Discord302Party.command.*;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.database.SchemaMigrations;
+import org.javacord.Discord302Party.database.ValidationLog;
 import org.javacord.Discord302Party.service.RankRequirementUpdater;
+import org.javacord.Discord302Party.service.RoleIndex;
 import org.javacord.Discord302Party.service.UserVerificationService;
 import org.javacord.Discord302Party.service.WOMGroupUpdater;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.MetricsReporter;
 import org.javacord.Discord302Party.utils.Utils;
 import org.javacord.api.DiscordApi;
 import org.javacord.api.DiscordApiBuilder;
@@ -55,6 +62,27 @@ public class Main {
         long guildId = Long.parseLong(dotenv.get("GUILD_ID"));
         Server server = api.getServerById(guildId).orElseThrow(() -> new IllegalArgumentException("Guild not found!"));
 
+        // Periodically log pool and component statistics
+        MetricsReporter.start();
+
+        // Add any columns, indexes and tables introduced since the last start
+        SchemaMigrations.apply();
+
+        // Remember which requirements members are already validated for, so rank checks only log new ones
+        ValidationLog.load();
+
+        // Load the ranks and requirements the commands and updaters look up
+        RankLadder.reload();
+
+        // Index the server roles by name, and keep the index current as roles change
+        RoleIndex.start(api, server);
+
+        // Let running command work finish before the connection pool goes away
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            BotExecutors.shutdown();
+            Database.shutdown();
+        }, "shutdown"));
+
         // Initialize and start WOMGroupUpdater
         WOMGroupUpdater womGroupUpdater = new WOMGroupUpdater(api);
         womGroupUpdater.startUpdater();
@@ -296,6 +324,7 @@ public class Main {
 
         // Register the "check_rank_up" command
         SlashCommand.with("check_rank_up", "Check which users are waiting for a rank up")
+                .addOption(SlashCommandOption.create(SlashCommandOptionType.LONG, "page", "The page of results to show", false))
                 .createForServer(api.getServerById(guildId).get()).join();
 
         // Register the "view_rank_requirements" command
@@ -1,9 +1,11 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.RankLadder;
 import org.javacord.Discord302Party.service.RankRequirementUpdater;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.message.component.ActionRow;
 import org.javacord.api.entity.message.component.SelectMenu;
 import org.javacord.api.entity.message.component.SelectMenuOption;
@@ -23,51 +25,53 @@ import java.util.List;
 public class DeleteRankRequirementsCommand implements SlashCommandCreateListener {
 
     private static final Logger logger = LogManager.getLogger(DeleteRankRequirementsCommand.class);
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
 
     @Override
     public void onSlashCommandCreate(SlashCommandCreateEvent event) {
         if (event.getSlashCommandInteraction().getCommandName().equalsIgnoreCase("delete_rank_requirement")) {
-            String rank = event.getSlashCommandInteraction().getOptionStringValueByName("rank").orElse("");
-
-            List<String> requirementTypes = getRequirementTypesForRank(rank);
-            if (requirementTypes.isEmpty()) {
-                event.getSlashCommandInteraction().createImmediateResponder()
-                        .setContent("No requirements found for the selected rank.")
-                        .respond().join();
-                return;
-            }
+            BotExecutors.runCommand(BotExecutors.interactive(), event.getSlashCommandInteraction(), () -> handleDeleteRankRequirement(event));
+        }
+    }
 
-            List<SelectMenuOption> options = new ArrayList<>();
-            for (String type : requirementTypes) {
-                options.add(SelectMenuOption.create(type, type));
-            }
+    private void handleDeleteRankRequirement(SlashCommandCreateEvent event) {
+        String rank = event.getSlashCommandInteraction().getOptionStringValueByName("rank").orElse("");
 
-            event.getInteraction().createImmediateResponder()
-                    .setContent("Please select the requirement to delete.")
-                    .addComponents(ActionRow.of(SelectMenu.create("delete_requirement_select", "Select a requirement", options)))
-                    .respond().thenAccept(interactionOriginalResponseUpdater -> {
-                // Register a listener for the select menu interaction
-                event.getApi().addSelectMenuChooseListener(selectEvent -> {
-                    if (selectEvent.getSelectMenuInteraction().getCustomId().equals("delete_requirement_select")) {
-                        SelectMenuInteraction selectMenuInteraction = selectEvent.getSelectMenuInteraction();
+        List<String> requirementTypes = getRequirementTypesForRank(rank);
+        if (requirementTypes.isEmpty()) {
+            event.getSlashCommandInteraction().createImmediateResponder()
+                    .setContent("No requirements found for the selected rank.")
+                    .respond().join();
+            return;
+        }
+
+        List<SelectMenuOption> options = new ArrayList<>();
+        for (String type : requirementTypes) {
+            options.add(SelectMenuOption.create(type, type));
+        }
 
-                        // Use getChosenOptions() and get(0) to get the first selected option
-                        String selectedType = selectMenuInteraction.getChosenOptions().get(0).getValue();
+        event.getInteraction().createImmediateResponder()
+                .setContent("Please select the requirement to delete.")
+                .addComponents(ActionRow.of(SelectMenu.create("delete_requirement_select", "Select a requirement", options)))
+                .respond().thenAccept(interactionOriginalResponseUpdater -> {
+            // Register a listener for the select menu interaction
+            event.getApi().addSelectMenuChooseListener(selectEvent -> {
+                if (selectEvent.getSelectMenuInteraction().getCustomId().equals("delete_requirement_select")) {
+                    SelectMenuInteraction selectMenuInteraction = selectEvent.getSelectMenuInteraction();
 
+                    // Use getChosenOptions() and get(0) to get the first selected option
+                    String selectedType = selectMenuInteraction.getChosenOptions().get(0).getValue();
+
+                    BotExecutors.runCommand(BotExecutors.interactive(), selectMenuInteraction, () -> {
                         deleteRequirement(selectMenuInteraction.getUser(), rank, selectedType);
 
                         selectMenuInteraction.getMessage().delete().join();  // Delete the message after selection
                         selectMenuInteraction.createImmediateResponder()
                                 .setContent("Requirement deleted successfully.")
                                 .respond().join();
-                    }
-                });
+                    });
+                }
             });
-        }
+        });
     }
 
     private void deleteRequirement(User user, String rank, String requirementType) {
@@ -78,6 +82,7 @@ public class DeleteRankRequirementsCommand implements SlashCommandCreateListener
                 preparedStatement.setString(2, requirementType);
                 preparedStatement.executeUpdate();
             }
+            RankLadder.reload();
         } catch (SQLException e) {
             logger.error("Error deleting rank requirement", e);
         }
@@ -85,23 +90,14 @@ public class DeleteRankRequirementsCommand implements SlashCommandCreateListener
 
     private List<String> getRequirementTypesForRank(String rank) {
         List<String> types = new ArrayList<>();
-        String query = "SELECT requirement_type FROM rank_requirements WHERE `rank` = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, rank);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                while (resultSet.next()) {
-                    types.add(resultSet.getString("requirement_type"));
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error fetching requirement types for rank", e);
+        for (RankLadder.Requirement requirement : RankLadder.get().getRequirements(rank)) {
+            types.add(requirement.getType());
         }
         return types;
     }
 
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return Database.getConnection();
     }
 
     // Method to create the rank option dynamically
@@ -2,6 +2,7 @@ package org.javacord.Discord302Party.command;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.Discord302Party.utils.GETrackerApi;
 import org.javacord.api.entity.message.embed.EmbedBuilder;
 import org.javacord.api.entity.message.Message;
@@ -19,8 +20,8 @@ public class FlipCommand implements SlashCommandCreateListener {
     @Override
     public void onSlashCommandCreate(SlashCommandCreateEvent event) {
         if (event.getSlashCommandInteraction().getCommandName().equalsIgnoreCase("flip")) {
-            int page = 0; // Start at page 0
-            fetchAndSendPage(event, page);
+            // Start at page 0
+            BotExecutors.runCommand(BotExecutors.http(), event.getSlashCommandInteraction(), () -> fetchAndSendPage(event, 0));
         }
     }
 
@@ -91,12 +92,12 @@ public class FlipCommand implements SlashCommandCreateListener {
 
                     if (emoji.equalsEmoji("⬅️")) {
                         if (page > 0) {
-                            message.removeAllReactions().join();
-                            fetchAndSendPage(event, page - 1); // Previous page
+                            // Previous page
+                            message.removeAllReactions().thenRunAsync(() -> fetchAndSendPage(event, page - 1), BotExecutors.http());
                         }
                     } else if (emoji.equalsEmoji("➡️")) {
-                        message.removeAllReactions().join();
-                        fetchAndSendPage(event, page + 1); // Next page
+                        // Next page
+                        message.removeAllReactions().thenRunAsync(() -> fetchAndSendPage(event, page + 1), BotExecutors.http());
                     }
                 }).removeAfter(10, java.util.concurrent.TimeUnit.MINUTES); // Remove reaction listener after 10 minutes to avoid stale reactions
             });
@@ -2,9 +2,11 @@ package org.javacord.Discord302Party.command;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.Discord302Party.utils.GETrackerApi;
 import org.javacord.api.entity.message.embed.EmbedBuilder;
 import org.javacord.api.entity.user.User;
@@ -15,36 +17,13 @@ import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 import java.awt.*;
 import java.sql.*;
 import java.time.Instant;
-import java.util.concurrent.CompletableFuture;
 
 public class GiveawayCommand implements SlashCommandCreateListener {
 
     private static final Logger logger = LogManager.getLogger(GiveawayCommand.class);
 
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    // Helper method to look up OSRS name by Discord UID
-    private String getOsrsNameByDiscordUid(long discordUid) {
-        String query = "SELECT character_name FROM discord_users WHERE discord_uid = ?";
-        try (Connection connection = connect();
-             PreparedStatement ps = connection.prepareStatement(query)) {
-            ps.setLong(1, discordUid);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("character_name");
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error looking up OSRS name by Discord UID: ", e);
-        }
-        return null;
+        return Database.getConnection();
     }
 
     @Override
@@ -84,11 +63,11 @@ public class GiveawayCommand implements SlashCommandCreateListener {
                 .setContent("Creating your giveaway...")
                 .respond();
 
-        CompletableFuture.runAsync(() -> {
+        BotExecutors.runFollowup(BotExecutors.http(), interaction, () -> {
             try {
                 User host = interaction.getUser();
                 long hostDiscordUid = host.getId();
-                String hostOsrsName = getOsrsNameByDiscordUid(hostDiscordUid);
+                String hostOsrsName = DiscordUserRepository.getCharacterName(hostDiscordUid);
                 if (hostOsrsName == null) {
                     interaction.createFollowupMessageBuilder()
                             .setContent("You haven't linked an OSRS name. Use `/name` first.")
@@ -224,7 +203,7 @@ public class GiveawayCommand implements SlashCommandCreateListener {
                 .setContent("Ending the giveaway...")
                 .respond();
 
-        CompletableFuture.runAsync(() -> {
+        BotExecutors.runFollowup(BotExecutors.interactive(), interaction, () -> {
             try {
                 long giveawayId = interaction.getOptionLongValueByName("giveaway_id").orElse(-1L);
                 if (giveawayId == -1L) {
@@ -267,7 +246,7 @@ public class GiveawayCommand implements SlashCommandCreateListener {
                 .setContent("Marking the giveaway prize as claimed...")
                 .respond();
 
-        CompletableFuture.runAsync(() -> {
+        BotExecutors.runFollowup(BotExecutors.interactive(), interaction, () -> {
             try {
                 long giveawayId = interaction.getOptionLongValueByName("giveaway_id").orElse(-1L);
                 User winnerUser = interaction.getOptionUserValueByName("winner").orElse(null);
@@ -280,7 +259,7 @@ public class GiveawayCommand implements SlashCommandCreateListener {
                 }
 
                 // Look up winner's OSRS name
-                String winnerOsrsName = getOsrsNameByDiscordUid(winnerUser.getId());
+                String winnerOsrsName = DiscordUserRepository.getCharacterName(winnerUser.getId());
                 if (winnerOsrsName == null) {
                     interaction.createFollowupMessageBuilder()
                             .setContent("That user has no linked OSRS name!")
@@ -3,16 +3,14 @@ package org.javacord.Discord302Party.command;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.BotHttpClient;
 import org.javacord.api.event.interaction.AutocompleteCreateEvent;
 import org.javacord.api.interaction.SlashCommandOptionChoice;
 import org.javacord.api.listener.interaction.AutocompleteCreateListener;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,7 +24,10 @@ public class ItemAutocompleteListener implements AutocompleteCreateListener {
     @Override
     public void onAutocompleteCreate(AutocompleteCreateEvent event) {
         logger.info("Autocomplete Created");
+        BotExecutors.http().execute(() -> handleAutocomplete(event));
+    }
 
+    private void handleAutocomplete(AutocompleteCreateEvent event) {
         // 1) Handle `/item_price item`
         if (event.getAutocompleteInteraction().getCommandName().equalsIgnoreCase("item_price")) {
             logger.info("Autocomplete Interaction for /item_price");
@@ -75,25 +76,14 @@ public class ItemAutocompleteListener implements AutocompleteCreateListener {
     private List<String> fetchItemsFromApi(String query) {
         try {
             // Construct the API URL
-            String apiUrl = "https://www.ge-tracker.com/api/items/search/" + query;
-
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            conn.setRequestProperty("Accept", "application/x.getracker.v2.1+json");
-
-            // Handle the response
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            in.close();
+            String apiUrl = BotHttpClient.GE_TRACKER_BASE_URL + "/items/search/" + BotHttpClient.encodePathSegment(query);
+
+            String response = BotHttpClient.get(apiUrl,
+                    "Authorization", "Bearer " + API_KEY,
+                    "Accept", "application/x.getracker.v2.1+json");
 
             // Parse the JSON response
-            JsonNode rootNode = objectMapper.readTree(response.toString());
+            JsonNode rootNode = objectMapper.readTree(response);
 
             // Return all item names
             return rootNode.findValues("name").stream()
@@ -1,7 +1,12 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
-import org.javacord.api.entity.permission.Role;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.MemberRepository;
+import org.javacord.Discord302Party.service.RoleReconciler;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.DiscordMutationQueue;
+import org.javacord.Discord302Party.utils.Utils;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
 import org.javacord.api.event.interaction.UserContextMenuCommandEvent;
@@ -12,16 +17,10 @@ import org.javacord.api.util.logging.ExceptionLogger;
 
 import java.sql.*;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class LinkOSRSNameCommand implements UserContextMenuCommandListener, MessageCreateListener {
 
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     // References used to track who triggered the command, which user is being linked, etc.
     private AtomicReference<User> modUserRef = new AtomicReference<>();
     private AtomicReference<User> targetUserRef = new AtomicReference<>();
@@ -36,42 +35,14 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
     // Database methods
     // ----------------------------------
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    private boolean isMemberInClan(String username) {
-        String query = "SELECT * FROM members WHERE LOWER(REPLACE(username, '_', ' ')) = LOWER(?) COLLATE utf8mb4_general_ci";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, username.toLowerCase());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            return resultSet.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
-    private String getRank(String username) {
-        String query = "SELECT rank FROM members WHERE LOWER(REPLACE(username, '_', ' ')) = LOWER(?)";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, username.toLowerCase());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getString("rank");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return Database.getConnection();
     }
 
     private boolean isDuplicateEntry(long discordUid, String characterName) {
-        String query = "SELECT discord_uid FROM discord_users WHERE LOWER(character_name) = LOWER(?)";
+        String query = "SELECT discord_uid FROM discord_users WHERE canonical_name = ?";
         try (Connection connection = connect();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName.toLowerCase());
+            preparedStatement.setString(1, Utils.canonicalizeName(characterName));
             ResultSet resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
                 long existingDiscordUid = resultSet.getLong("discord_uid");
@@ -108,6 +79,8 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
             preparedStatement.setString(2, characterName);
             preparedStatement.setString(3, rank);
             preparedStatement.executeUpdate();
+            DiscordUserRepository.invalidate(discordUid);
+            DiscordUserRepository.invalidate(characterName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -135,40 +108,42 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
                         .setContent("Attempting to link OSRS name using the current nickname...")
                         .respond();
 
-                long discordUid = targetUser.getId();
-
-                // Check for duplicates
-                if (isDuplicateEntry(discordUid, characterName)) {
-                    // Prompt the user (moderator) if they want to overwrite
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("**Duplicate entry detected!** The OSRS name `" + characterName
-                                    + "` is already linked to a different Discord account.\n"
-                                    + "Would you like to **overwrite** the existing linkage? Reply `yes` or `no`.")
-                            .send();
-
-                    // Store references for overwrite flow
-                    modUserRef.set(event.getUserContextMenuInteraction().getUser());   // Who triggered the command
-                    pendingDiscordUidRef.set(discordUid);
-                    pendingCharacterNameRef.set(characterName);
-                    pendingEventRef.set(event);
-                    awaitingOverwriteRef.set(true);
-
-                    // We do NOT return here; we just wait for the moderator’s yes/no.
-                    return;
-                }
-
-                // If no duplicate, proceed with normal logic:
-                // Check if the character is in the clan
-                if (isMemberInClan(characterName)) {
-                    handleSuccessfulLink(event, targetUser, server, characterName);
-                } else {
-                    // If the nickname doesn't match a clan member, ask for manual input
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("The nickname `" + characterName + "` is not recognized as a clan member. "
-                                    + "Please reply with the correct OSRS character name.")
-                            .send();
-                    modUserRef.set(event.getUserContextMenuInteraction().getUser());
-                }
+                BotExecutors.runFollowup(BotExecutors.interactive(), event.getUserContextMenuInteraction(), () -> {
+                    long discordUid = targetUser.getId();
+
+                    // Check for duplicates
+                    if (isDuplicateEntry(discordUid, characterName)) {
+                        // Prompt the user (moderator) if they want to overwrite
+                        event.getUserContextMenuInteraction().createFollowupMessageBuilder()
+                                .setContent("**Duplicate entry detected!** The OSRS name `" + characterName
+                                        + "` is already linked to a different Discord account.\n"
+                                        + "Would you like to **overwrite** the existing linkage? Reply `yes` or `no`.")
+                                .send();
+
+                        // Store references for overwrite flow
+                        modUserRef.set(event.getUserContextMenuInteraction().getUser());   // Who triggered the command
+                        pendingDiscordUidRef.set(discordUid);
+                        pendingCharacterNameRef.set(characterName);
+                        pendingEventRef.set(event);
+                        awaitingOverwriteRef.set(true);
+
+                        // We do NOT return here; we just wait for the moderator’s yes/no.
+                        return;
+                    }
+
+                    // If no duplicate, proceed with normal logic:
+                    // Check if the character is in the clan
+                    if (MemberRepository.isMemberInClan(characterName)) {
+                        handleSuccessfulLink(event, targetUser, server, characterName);
+                    } else {
+                        // If the nickname doesn't match a clan member, ask for manual input
+                        event.getUserContextMenuInteraction().createFollowupMessageBuilder()
+                                .setContent("The nickname `" + characterName + "` is not recognized as a clan member. "
+                                        + "Please reply with the correct OSRS character name.")
+                                .send();
+                        modUserRef.set(event.getUserContextMenuInteraction().getUser());
+                    }
+                });
             } else {
                 event.getUserContextMenuInteraction().createImmediateResponder()
                         .setContent("Error: Couldn't retrieve server information.")
@@ -194,20 +169,18 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
                 awaitingOverwriteRef.set(false);
 
                 if (content.equals("yes")) {
-                    // They agreed to overwrite => proceed with linking
+                    // They agreed to overwrite => proceed with linking, the references are reset once it's done
                     messageEvent.getChannel().sendMessage("Overwriting existing linkage...");
-                    overwriteExistingLink();
+                    BotExecutors.interactive().execute(() -> {
+                        overwriteExistingLink();
+                        clearPendingOverwrite();
+                    });
                 } else {
                     // They declined
                     messageEvent.getChannel().sendMessage("Not overwriting existing linkage. Cancelled.");
+                    clearPendingOverwrite();
                 }
 
-                // Reset references so we don't accidentally reuse them
-                modUserRef.set(null);
-                pendingDiscordUidRef.set(null);
-                pendingCharacterNameRef.set(null);
-                pendingEventRef.set(null);
-
                 return;
             }
         }
@@ -223,13 +196,16 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
             // Ensure we have a valid server
             if (server != null && !awaitingOverwriteRef.get()) {
                 // Check if the manually entered character is in the clan
-                if (isMemberInClan(osrsCharacterName)) {
-                    messageEvent.getChannel().sendMessage("OSRS character `" + osrsCharacterName
-                            + "` is recognized! Proceeding with linking.");
-                    handleSuccessfulLinkOnMessage(messageEvent, targetUserRef.get(), server, osrsCharacterName);
-                } else {
-                    messageEvent.getChannel().sendMessage("The provided OSRS character name is not a member of the clan.");
-                }
+                User targetUser = targetUserRef.get();
+                BotExecutors.interactive().execute(() -> {
+                    if (MemberRepository.isMemberInClan(osrsCharacterName)) {
+                        messageEvent.getChannel().sendMessage("OSRS character `" + osrsCharacterName
+                                + "` is recognized! Proceeding with linking.");
+                        handleSuccessfulLinkOnMessage(messageEvent, targetUser, server, osrsCharacterName);
+                    } else {
+                        messageEvent.getChannel().sendMessage("The provided OSRS character name is not a member of the clan.");
+                    }
+                });
 
                 // Remove this listener from the API (clean up) and re-add context menu listener
                 messageEvent.getApi().removeListener(this);
@@ -238,6 +214,14 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
         }
     }
 
+    // Reset references so we don't accidentally reuse them
+    private void clearPendingOverwrite() {
+        modUserRef.set(null);
+        pendingDiscordUidRef.set(null);
+        pendingCharacterNameRef.set(null);
+        pendingEventRef.set(null);
+    }
+
     /**
      * Called if the user typed "yes" in response to the duplicate overwrite question.
      * We do the same flow as a normal link, except we skip the 'duplicate' check since we are intentionally overwriting.
@@ -271,7 +255,7 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
         // *At this point, we already know it's a "duplicate" scenario, but the user said "yes" to overwrite.*
         // We can re-check clan membership or simply continue.
         // Let's keep the same logic to ensure valid clan membership:
-        if (isMemberInClan(characterName)) {
+        if (MemberRepository.isMemberInClan(characterName)) {
             // Proceed with linking (same as normal)
             handleSuccessfulLink(event, targetUser, server, characterName);
         } else {
@@ -289,7 +273,8 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
 
         // Update Discord nickname to OSRS name
         boolean nicknameUpdated = retryOperation(() ->
-                targetUser.updateNickname(server, characterName).exceptionally(ExceptionLogger.get())
+                DiscordMutationQueue.updateNickname(server, targetUser, characterName, DiscordMutationQueue.Priority.INTERACTIVE)
+                        .exceptionally(ExceptionLogger.get())
         );
 
         if (!nicknameUpdated) {
@@ -299,38 +284,20 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
             return;
         }
 
-        // Assign "Green Party Hats" role
-        Role greenPartyHatsRole = server.getRoleById("1168065194858119218").orElse(null);
-        if (greenPartyHatsRole != null && !targetUser.getRoles(server).contains(greenPartyHatsRole)) {
-            boolean roleAssigned = retryOperation(() ->
-                    targetUser.addRole(greenPartyHatsRole).exceptionally(ExceptionLogger.get())
+        // Determine OSRS rank and assign the "Green Party Hats" and corresponding rank roles in one update
+        String rank = MemberRepository.findRankByCharacterName(characterName);
+        if (rank != null) {
+            String temporaryRank = DiscordUserRepository.getTemporaryRank(discordUid);
+            boolean rolesAssigned = retryOperation(() ->
+                    RoleReconciler.reconcile(server, targetUser, rank, temporaryRank, DiscordMutationQueue.Priority.INTERACTIVE)
+                            .exceptionally(ExceptionLogger.get())
             );
-            if (!roleAssigned) {
+            if (!rolesAssigned) {
                 event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                        .setContent("Failed to assign the 'Green Party Hats' role.")
+                        .setContent("Failed to assign the roles for rank: " + rank)
                         .send();
                 return;
             }
-        }
-
-        // Determine OSRS rank and assign corresponding role
-        String rank = getRank(characterName);
-        if (rank != null) {
-            Role role = rank.equalsIgnoreCase("deputy_owner")
-                    ? server.getRolesByNameIgnoreCase("Co-Owner").stream().findFirst().orElse(null)
-                    : server.getRolesByNameIgnoreCase(rank).stream().findFirst().orElse(null);
-
-            if (role != null && !targetUser.getRoles(server).contains(role)) {
-                boolean rankRoleAssigned = retryOperation(() ->
-                        targetUser.addRole(role).exceptionally(ExceptionLogger.get())
-                );
-                if (!rankRoleAssigned) {
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("Failed to assign the role for rank: " + rank)
-                            .send();
-                    return;
-                }
-            }
 
             // Save user details in database
             saveUserDetails(discordUid, characterName, rank);
@@ -350,7 +317,8 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
         long discordUid = targetUser.getId();
 
         boolean nicknameUpdated = retryOperation(() ->
-                targetUser.updateNickname(server, characterName).exceptionally(ExceptionLogger.get())
+                DiscordMutationQueue.updateNickname(server, targetUser, characterName, DiscordMutationQueue.Priority.INTERACTIVE)
+                        .exceptionally(ExceptionLogger.get())
         );
 
         if (!nicknameUpdated) {
@@ -358,34 +326,18 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
             return;
         }
 
-        // Assign "Green Party Hats" role
-        Role greenPartyHatsRole = server.getRoleById("1168065194858119218").orElse(null);
-        if (greenPartyHatsRole != null && !targetUser.getRoles(server).contains(greenPartyHatsRole)) {
-            boolean roleAssigned = retryOperation(() ->
-                    targetUser.addRole(greenPartyHatsRole).exceptionally(ExceptionLogger.get())
+        // Determine OSRS rank and assign the "Green Party Hats" and corresponding rank roles in one update
+        String rank = MemberRepository.findRankByCharacterName(characterName);
+        if (rank != null) {
+            String temporaryRank = DiscordUserRepository.getTemporaryRank(discordUid);
+            boolean rolesAssigned = retryOperation(() ->
+                    RoleReconciler.reconcile(server, targetUser, rank, temporaryRank, DiscordMutationQueue.Priority.INTERACTIVE)
+                            .exceptionally(ExceptionLogger.get())
             );
-            if (!roleAssigned) {
-                event.getChannel().sendMessage("Failed to assign the 'Green Party Hats' role.");
+            if (!rolesAssigned) {
+                event.getChannel().sendMessage("Failed to assign the roles for rank: " + rank);
                 return;
             }
-        }
-
-        // Determine OSRS rank
-        String rank = getRank(characterName);
-        if (rank != null) {
-            Role role = rank.equalsIgnoreCase("deputy_owner")
-                    ? server.getRolesByNameIgnoreCase("Co-Owner").stream().findFirst().orElse(null)
-                    : server.getRolesByNameIgnoreCase(rank).stream().findFirst().orElse(null);
-
-            if (role != null && !targetUser.getRoles(server).contains(role)) {
-                boolean rankRoleAssigned = retryOperation(() ->
-                        targetUser.addRole(role).exceptionally(ExceptionLogger.get())
-                );
-                if (!rankRoleAssigned) {
-                    event.getChannel().sendMessage("Failed to assign the role for rank: " + rank);
-                    return;
-                }
-            }
 
             // Save user details in DB
             saveUserDetails(discordUid, characterName, rank);
@@ -396,7 +348,7 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
     }
 
     /**
-     * Retries the given operation (async) up to 3 times.
+     * Retries the given operation up to 3 times.
      */
     private boolean retryOperation(Runnable operation) {
         int maxRetries = 3;
@@ -404,8 +356,7 @@ public class LinkOSRSNameCommand implements UserContextMenuCommandListener, Mess
 
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                CompletableFuture<Void> result = CompletableFuture.runAsync(operation);
-                result.join();
+                operation.run();
                 return true;
             } catch (Exception e) {
                 if (attempt == maxRetries) {
@@ -1,6 +1,12 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.MemberRepository;
+import org.javacord.Discord302Party.service.RoleReconciler;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.DiscordMutationQueue;
+import org.javacord.Discord302Party.utils.Utils;
 import org.javacord.api.entity.permission.Role;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
@@ -10,53 +16,18 @@ import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 import org.javacord.api.util.logging.ExceptionLogger;
 
 import java.sql.*;
-import java.util.concurrent.CompletableFuture;
 
 public class NameCommand implements SlashCommandCreateListener {
 
-    // Load environment variables
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    private boolean isMemberInClan(String username) {
-        String query = "SELECT * FROM members WHERE LOWER(REPLACE(username, '_', ' ')) = LOWER(?)";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, username.toLowerCase());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            return resultSet.next(); // Return true if a result is found
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
-    private String getRank(String username) {
-        String query = "SELECT rank FROM members WHERE LOWER(REPLACE(username, '_', ' ')) = LOWER(?)";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, username.toLowerCase());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getString("rank");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return Database.getConnection();
     }
 
     private boolean isDuplicateEntry(long discordUid, String characterName) {
-        String query = "SELECT discord_uid FROM discord_users WHERE LOWER(character_name) = LOWER(?)";
+        String query = "SELECT discord_uid FROM discord_users WHERE canonical_name = ?";
         try (Connection connection = connect();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName.toLowerCase());
+            preparedStatement.setString(1, Utils.canonicalizeName(characterName));
             ResultSet resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
                 long existingDiscordUid = resultSet.getLong("discord_uid");
@@ -88,6 +59,7 @@ public class NameCommand implements SlashCommandCreateListener {
             preparedStatement.setString(2, characterName);
             preparedStatement.setString(3, rank);
             preparedStatement.executeUpdate();
+            DiscordUserRepository.invalidate(discordUid);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -117,81 +89,68 @@ public class NameCommand implements SlashCommandCreateListener {
                     .setContent("Processing your request...")
                     .respond().join();
 
-            if (isDuplicateEntry(discordUid, characterName)) {
-                saveToDuplicateTable(discordUid, characterName);
-                updater.setContent("Duplicate entry found. Your information has been saved for review.").update();
-                return;
-            }
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getSlashCommandInteraction(),
+                    () -> linkCharacter(updater, user, server, discordUid, characterName));
+        }
+    }
 
-            if (isMemberInClan(characterName)) {
-                // Set Discord name to just the character name
-                boolean nicknameUpdated = retryOperation(() ->
-                        user.updateNickname(server, characterName).exceptionally(ExceptionLogger.get())
-                );
+    private void linkCharacter(InteractionOriginalResponseUpdater updater, User user, Server server, long discordUid, String characterName) {
+        if (isDuplicateEntry(discordUid, characterName)) {
+            saveToDuplicateTable(discordUid, characterName);
+            updater.setContent("Duplicate entry found. Your information has been saved for review.").update();
+            return;
+        }
 
-                if (!nicknameUpdated) {
-                    updater.setContent("Failed to update your nickname after several attempts. Please try again later.").update();
-                    return;
-                }
+        if (MemberRepository.isMemberInClan(characterName)) {
+            // Set Discord name to just the character name
+            boolean nicknameUpdated = retryOperation(() ->
+                    DiscordMutationQueue.updateNickname(server, user, characterName, DiscordMutationQueue.Priority.INTERACTIVE)
+                            .exceptionally(ExceptionLogger.get())
+            );
 
-                // Assign "Green Party Hats" role by ID for reliability
-                Role greenPartyHatsRole = server.getRoleById("1168065194858119218").orElse(null);
-                if (greenPartyHatsRole != null) {
-                    if (!user.getRoles(server).contains(greenPartyHatsRole)) {
-                        try {
-                            Thread.sleep(200);  // Introduce a short delay to avoid timing issues
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
-                        boolean roleAssigned = retryOperation(() ->
-                                user.addRole(greenPartyHatsRole).exceptionally(ExceptionLogger.get())
-                        );
-                        if (!roleAssigned) {
-                            updater.setContent("Failed to assign the 'Green Party Hats' role after several attempts.").update();
-                            return;
-                        }
-                    }
-                } else {
-                    updater.setContent("Green Party Hats role not found.").update();
-                    return;
-                }
+            if (!nicknameUpdated) {
+                updater.setContent("Failed to update your nickname after several attempts. Please try again later.").update();
+                return;
+            }
 
+            // The "Green Party Hats" role is looked up by ID for reliability
+            Role greenPartyHatsRole = server.getRoleById(RoleReconciler.GREEN_PARTY_HATS_ROLE_ID).orElse(null);
+            if (greenPartyHatsRole == null) {
+                updater.setContent("Green Party Hats role not found.").update();
+                return;
+            }
 
+            // Assign the "Green Party Hats" role and the role based on rank in one update
+            String rank = MemberRepository.findRankByCharacterName(characterName);
+            if (rank != null) {
+                Role role = RoleReconciler.getRankRole(server, rank).orElse(null);
 
-                // Assign role based on rank
-                String rank = getRank(characterName);
-                if (rank != null) {
-                    Role role = rank.equalsIgnoreCase("deputy_owner") ?
-                            server.getRolesByNameIgnoreCase("Co-Owner").stream().findFirst().orElse(null) :
-                            server.getRolesByNameIgnoreCase(rank).stream().findFirst().orElse(null);
-
-                    if (role != null) {
-                        if (!user.getRoles(server).contains(role)) {
-                            try {
-                                Thread.sleep(200);
-                            } catch (InterruptedException e) {
-                                e.printStackTrace();
-                            }
-                            boolean rankRoleAssigned = retryOperation(() ->
-                                    user.addRole(role).exceptionally(ExceptionLogger.get())
-                            );
-                            if (!rankRoleAssigned) {
-                                updater.setContent("Failed to assign the role for your rank after several attempts.").update();
-                                return;
-                            }
-                        }
-                        // Save or update user details in the database
-                        saveUserDetails(discordUid, characterName, rank);
-                        updater.setContent("Name updated, roles assigned, and details saved!").update();
-                    } else {
-                        updater.setContent("Role not found for the rank: " + rank).update();
+                if (role != null) {
+                    try {
+                        Thread.sleep(200);  // Introduce a short delay to avoid timing issues
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    String temporaryRank = DiscordUserRepository.getTemporaryRank(discordUid);
+                    boolean rolesAssigned = retryOperation(() ->
+                            RoleReconciler.reconcile(server, user, rank, temporaryRank, DiscordMutationQueue.Priority.INTERACTIVE)
+                                    .exceptionally(ExceptionLogger.get())
+                    );
+                    if (!rolesAssigned) {
+                        updater.setContent("Failed to assign the roles for your rank after several attempts.").update();
+                        return;
                     }
+                    // Save or update user details in the database
+                    saveUserDetails(discordUid, characterName, rank);
+                    updater.setContent("Name updated, roles assigned, and details saved!").update();
                 } else {
-                    updater.setContent("Rank not found for your character.").update();
+                    updater.setContent("Role not found for the rank: " + rank).update();
                 }
             } else {
-                updater.setContent("You are not a member of the clan. If you recently joined, ask a mod to manually refresh.").update();
+                updater.setContent("Rank not found for your character.").update();
             }
+        } else {
+            updater.setContent("You are not a member of the clan. If you recently joined, ask a mod to manually refresh.").update();
         }
     }
 
@@ -202,8 +161,7 @@ public class NameCommand implements SlashCommandCreateListener {
 
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                CompletableFuture<Void> result = CompletableFuture.runAsync(operation);
-                result.join(); // Block until the operation completes
+                operation.run(); // Already on a pool thread, no need to hop to another one
                 return true; // Operation successful
             } catch (Exception e) {
                 if (attempt == maxRetries) {
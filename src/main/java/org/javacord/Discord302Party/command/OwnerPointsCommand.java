@@ -1,8 +1,15 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.ConfigRepository;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.MemberRepository;
+import org.javacord.Discord302Party.database.PointsLedger;
+import org.javacord.Discord302Party.database.PointsTransfer;
+import org.javacord.Discord302Party.service.RankEvaluationQueue;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.message.MessageFlag;
 import org.javacord.api.entity.permission.Role;
 import org.javacord.api.entity.server.Server;
@@ -11,190 +18,25 @@ import org.javacord.api.event.interaction.SlashCommandCreateEvent;
 import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 
 import java.sql.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 
 public class OwnerPointsCommand implements SlashCommandCreateListener {
 
     private static final Logger logger = LogManager.getLogger(ModPointsCommand.class);
 
-    // Load environment variables
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
+    // Members may give the same member at most 3500 points per 24 hours
+    private static final PointsLedger.Limits LIMITS = new PointsLedger.Limits(1, 3500, false);
 
     private Connection connect() throws SQLException {
-        logger.info("Attempting to connect to the database...");
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    private String getCharacterNameByDiscordUid(long discordUid) {
-        String query = "SELECT character_name FROM discord_users WHERE discord_uid = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setLong(1, discordUid);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Character name found for Discord UID: {}", discordUid);
-                    return resultSet.getString("character_name");
-                } else {
-                    logger.warn("No character name found for Discord UID: {}", discordUid);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching character name: ", e);
-        }
-        return null;
-    }
-
-    private int getUserPoints(String characterName) {
-        String query = "SELECT points FROM members WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Points found for character name: {}", characterName);
-                    return resultSet.getInt("points");
-                } else {
-                    logger.warn("No points found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user points: ", e);
-        }
-        return 0;
-    }
-
-    private int getUserGivenPoints(String characterName) {
-        String query = "SELECT given_points FROM members WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Given points found for character name: {}", characterName);
-                    return resultSet.getInt("given_points");
-                } else {
-                    logger.warn("No given points found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user given points: ", e);
-        }
-        return 0;
-    }
-
-    private int getRankTotalPoints(String rank) {
-        String query = "SELECT total_points FROM config WHERE `rank` = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, rank);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Total points found for rank: {}", rank);
-                    return resultSet.getInt("total_points");
-                } else {
-                    logger.warn("No total points found for rank: {}", rank);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching rank total points: ", e);
-        }
-        return 0;
-    }
-
-    private String getUserRank(String characterName) {
-        String query = "SELECT `rank` FROM members WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Rank found for character name: {}", characterName);
-                    return resultSet.getString("rank");
-                } else {
-                    logger.warn("No rank found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user rank: ", e);
-        }
-        return null;
-    }
-
-    private void updateUserPoints(String characterName, int pointsToAdd) {
-        String query = "UPDATE members SET points = points + ? WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setInt(1, pointsToAdd);
-            preparedStatement.setString(2, characterName);
-            int rowsUpdated = preparedStatement.executeUpdate();
-            if (rowsUpdated > 0) {
-                logger.info("Successfully updated points for character name: {}", characterName);
-            } else {
-                logger.warn("No rows updated for character name: {}", characterName);
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while updating user points: ", e);
-        }
-    }
-
-    private int getPointsGivenInLast24Hours(String giver, String recipient) {
-        String query = "SELECT SUM(points_change) AS total_given FROM points_transactions " +
-                "WHERE character_name = ? AND related_user = ? AND timestamp >= NOW() - INTERVAL 1 DAY";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, giver);
-            preparedStatement.setString(2, recipient);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    return resultSet.getInt("total_given");
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while checking points given in last 24 hours: ", e);
-        }
-        return 0;
-    }
-
-    private void logPointsTransaction(String characterName, int pointsChange, String reason, String relatedUser, int previousPoints, int newPoints) {
-        String query = "INSERT INTO points_transactions (character_name, points_change, reason, timestamp, related_user, previous_points, new_points) VALUES (?, ?, ?, NOW(), ?, ?, ?)";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            preparedStatement.setInt(2, pointsChange);
-            preparedStatement.setString(3, reason);
-            preparedStatement.setString(4, relatedUser);
-            preparedStatement.setInt(5, previousPoints);
-            preparedStatement.setInt(6, newPoints);
-            preparedStatement.executeUpdate();
-            logger.info("Points transaction logged for character: {}", characterName);
-        } catch (SQLException e) {
-            logger.error("SQL Exception while logging points transaction: ", e);
-        }
-    }
-
-    private String getPointsChannelId() {
-        String query = "SELECT value FROM disc_config WHERE key_name = 'points_channel_id'";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
-            if (resultSet.next()) {
-                logger.info("Points channel ID found.");
-                return resultSet.getString("value");
-            } else {
-                logger.warn("No points channel ID found.");
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching points channel ID: ", e);
-        }
-        return null;
+        return Database.getConnection();
     }
 
     private void postPointsUpdate(Server server, String message) {
-        String channelId = getPointsChannelId();
+        String channelId = ConfigRepository.getPointsChannelId();
         if (channelId != null) {
             server.getTextChannelById(channelId).ifPresent(channel -> {
                 logger.info("Posting points update to channel ID: {}", channelId);
@@ -216,7 +58,20 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
                     .respond().join();
 
             // Handle command processing asynchronously
-            CompletableFuture.runAsync(() -> processPointsCommand(event));
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getSlashCommandInteraction(), () -> processPointsCommand(event));
+        }
+    }
+
+    private String describeRefusal(PointsTransfer transfer, String mentionedCharacterName) {
+        switch (transfer.getStatus()) {
+            case RECIPIENT_NOT_FOUND:
+                return mentionedCharacterName + " isn't a member of the clan.";
+            case INSUFFICIENT_BALANCE:
+                return "Cannot remove more points than the user currently has. " + mentionedCharacterName + " has " + transfer.getPreviousPoints() + " points.";
+            case RECIPIENT_LIMIT_REACHED:
+                return "You have already given " + transfer.getGivenToRecipient() + " points to " + mentionedCharacterName + " in the last 24 hours. You can only give a maximum of 3500 points per 24 hours to the same user.";
+            default:
+                return "An error occurred while processing your request. Please try again later.";
         }
     }
 
@@ -241,7 +96,7 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
             }
 
             // Retrieve the character name associated with the user's Discord UID
-            String characterName = getCharacterNameByDiscordUid(discordUid);
+            String characterName = DiscordUserRepository.getCharacterName(discordUid);
             if (characterName == null) {
                 event.getSlashCommandInteraction().createFollowupMessageBuilder()
                         .setContent("Error: No character name associated with your Discord account. Please use the `/name` command to link your OSRS character name to your Discord account first.")
@@ -265,7 +120,7 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
             if (mentionedUserOpt.isPresent() && points != 0) {
                 // Handle adding or removing points for an individual user
                 User mentionedUser = mentionedUserOpt.get();
-                String mentionedCharacterName = getCharacterNameByDiscordUid(mentionedUser.getId());
+                String mentionedCharacterName = DiscordUserRepository.getCharacterName(mentionedUser.getId());
                 logger.info("Attempting to modify points for: {}", mentionedCharacterName);
 
                 if (mentionedCharacterName == null) {
@@ -275,27 +130,13 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
                     return;
                 }
 
-                // Fetch current points of the mentioned user
-                int currentPoints = getUserPoints(mentionedCharacterName);
-
-                // Check if the action is to remove points
-                if (points < 0) {
-                    // Check if the user has the MANAGE_SERVER permission
-                    if (!hasPermissionToRemovePoints(server, user)) {
-                        event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                                .setContent("You do not have permission to remove points.")
-                                .setFlags(MessageFlag.EPHEMERAL)
-                                .send();
-                        return;
-                    }
-
-                    // Ensure the user cannot remove more points than the user currently has
-                    if (currentPoints + points < 0) {
-                        event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                                .setContent("Cannot remove more points than the user currently has. " + mentionedCharacterName + " has " + currentPoints + " points.")
-                                .send();
-                        return;
-                    }
+                // Check if the action is to remove points, which needs the MANAGE_SERVER permission
+                if (points < 0 && !hasPermissionToRemovePoints(server, user)) {
+                    event.getSlashCommandInteraction().createFollowupMessageBuilder()
+                            .setContent("You do not have permission to remove points.")
+                            .setFlags(MessageFlag.EPHEMERAL)
+                            .send();
+                    return;
                 }
 
                 if (characterName.equalsIgnoreCase(mentionedCharacterName)){
@@ -306,22 +147,17 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
                     return;
                 }
 
-                // Check how many points the giver has given in the last 24 hours to the recipient
-                int pointsGivenInLast24Hours = getPointsGivenInLast24Hours(characterName, mentionedCharacterName);
-                if (pointsGivenInLast24Hours + points > 3500) {
+                // Check the balance and the 24 hour limit, update the points and log the transaction in one go
+                PointsTransfer transfer = PointsLedger.transfer(characterName, mentionedCharacterName, points, reason, LIMITS);
+                if (!transfer.isApplied()) {
                     event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                            .setContent("You have already given " + pointsGivenInLast24Hours + " points to " + mentionedCharacterName + " in the last 24 hours. You can only give a maximum of 3500 points per 24 hours to the same user.")
+                            .setContent(describeRefusal(transfer, mentionedCharacterName))
                             .setFlags(MessageFlag.EPHEMERAL)
                             .send();
                     return;
                 }
-
-                // Update points for the mentioned user
-                updateUserPoints(mentionedCharacterName, points);
-
-                // Log the transaction
-                int newPoints = currentPoints + points;
-                logPointsTransaction(mentionedCharacterName, points, reason, characterName, currentPoints, newPoints);
+                int newPoints = transfer.getNewPoints();
+                RankEvaluationQueue.enqueue(mentionedCharacterName);
 
                 // Post to the configured channel
                 String action = points > 0 ? "Received" : "Lost";
@@ -333,7 +169,7 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
             } else if (mentionedRoleOpt.isPresent() && points != 0) {
                 // Handle distributing points to all members of a role
                 Role mentionedRole = mentionedRoleOpt.get();
-                java.util.Set<User> usersInRole = mentionedRole.getUsers();
+                Set<User> usersInRole = mentionedRole.getUsers();
 
                 if (usersInRole.isEmpty()) {
                     event.getSlashCommandInteraction().createFollowupMessageBuilder()
@@ -353,27 +189,45 @@ public class OwnerPointsCommand implements SlashCommandCreateListener {
                     return;
                 }
 
-                for (User roleUser : usersInRole) {
-                    String roleUserCharacterName = getCharacterNameByDiscordUid(roleUser.getId());
-                    if (roleUserCharacterName != null) {
-                        int currentPoints = getUserPoints(roleUserCharacterName);
-                        updateUserPoints(roleUserCharacterName, pointsPerUser);
-                        logPointsTransaction(roleUserCharacterName, pointsPerUser, reason, characterName, currentPoints, currentPoints + pointsPerUser);
-                    }
+                // Resolve every member of the role up front instead of querying per user
+                Set<Long> roleUserIds = new HashSet<>();
+                usersInRole.forEach(roleUser -> roleUserIds.add(roleUser.getId()));
+                Collection<String> roleCharacterNames = new HashSet<>(DiscordUserRepository.getCharacterNames(roleUserIds).values());
+
+                if (roleCharacterNames.isEmpty()) {
+                    event.getSlashCommandInteraction().createFollowupMessageBuilder()
+                            .setContent("None of the members of the role " + mentionedRole.getName() + " have linked their OSRS name.")
+                            .setFlags(MessageFlag.EPHEMERAL)
+                            .send();
+                    return;
+                }
+
+                // Update the balances, ledger and giving rollups of the whole role in one transaction
+                Map<String, Integer> newBalances = PointsLedger.distribute(characterName, roleCharacterNames, pointsPerUser, reason);
+                if (newBalances.isEmpty()) {
+                    // The transaction failed, or none of the linked users are clan members
+                    event.getSlashCommandInteraction().createFollowupMessageBuilder()
+                            .setContent("No points were distributed to the role " + mentionedRole.getName() + ". Please try again later.")
+                            .setFlags(MessageFlag.EPHEMERAL)
+                            .send();
+                    return;
                 }
+                RankEvaluationQueue.enqueue(newBalances.keySet());
 
+                // Unlinked users and users who aren't clan members don't receive points
+                int numRecipients = newBalances.size();
                 event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                        .setContent("Distributed " + pointsPerUser + " points to " + numUsers + " users in the role " + mentionedRole.getName() + ".")
+                        .setContent("Distributed " + pointsPerUser + " points to " + numRecipients + " users in the role " + mentionedRole.getName() + ".")
                         .setFlags(MessageFlag.EPHEMERAL)
                         .send();
 
-                postPointsUpdate(server, characterName + " distributed " + pointsPerUser + " points to " + numUsers + " users in the " + mentionedRole.getName() + " role for " + reason + ".");
+                postPointsUpdate(server, characterName + " distributed " + pointsPerUser + " points to " + numRecipients + " users in the " + mentionedRole.getName() + " role for " + reason + ".");
         } else {
                 // Fetch and display user's own points
-                int userPoints = getUserPoints(characterName);
-                String userRank = getUserRank(characterName);
-                int givenPoints = getUserGivenPoints(characterName);
-                int totalPoints = getRankTotalPoints(userRank);
+                int userPoints = MemberRepository.getPoints(characterName);
+                String userRank = MemberRepository.getRank(characterName);
+                int givenPoints = PointsLedger.getGivenThisWeek(characterName);
+                int totalPoints = ConfigRepository.getRankTotalPoints(userRank);
                 int availablePoints = totalPoints - givenPoints;
 
                 // Fetch points received from other users
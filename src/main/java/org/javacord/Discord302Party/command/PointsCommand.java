@@ -1,8 +1,15 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.ConfigRepository;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.MemberRepository;
+import org.javacord.Discord302Party.database.PointsLedger;
+import org.javacord.Discord302Party.database.PointsTransfer;
+import org.javacord.Discord302Party.service.RankEvaluationQueue;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.message.MessageFlag;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
@@ -13,211 +20,20 @@ import org.javacord.api.listener.interaction.UserContextMenuCommandListener;
 
 import java.sql.*;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 
 public class PointsCommand implements SlashCommandCreateListener, UserContextMenuCommandListener {
 
     private static final Logger logger = LogManager.getLogger(PointsCommand.class);
 
-    // Load environment variables
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
+    // Members may give the same member at most 15 points a week, out of their rank's weekly budget
+    private static final PointsLedger.Limits LIMITS = new PointsLedger.Limits(7, 15, true);
 
     private Connection connect() throws SQLException {
-        logger.info("Attempting to connect to the database...");
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    private String getCharacterNameByDiscordUid(long discordUid) {
-        String query = "SELECT character_name FROM discord_users WHERE discord_uid = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setLong(1, discordUid);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Character name found for Discord UID: {}", discordUid);
-                    return resultSet.getString("character_name");
-                } else {
-                    logger.warn("No character name found for Discord UID: {}", discordUid);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching character name: ", e);
-        }
-        return null;
-    }
-
-    private int getUserPoints(String characterName) {
-        String query = "SELECT points FROM members WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Points found for character name: {}", characterName);
-                    return resultSet.getInt("points");
-                } else {
-                    logger.warn("No points found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user points: ", e);
-        }
-        return 0;
-    }
-
-    private int getUserGivenPoints(String characterName) {
-        // Query to sum the points given by the character
-        String query = "SELECT SUM(points_change) AS total_given_points " +
-                "FROM points_transactions WHERE related_user = ? and timestamp >= NOW() - INTERVAL 1 WEEK ";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    int totalGivenPoints = resultSet.getInt("total_given_points");
-                    logger.info("Total given points found for character name: {}", characterName);
-                    return totalGivenPoints;
-                } else {
-                    logger.warn("No points transactions found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user given points: ", e);
-        }
-        return 0;  // Return 0 if no points found or an error occurred
-    }
-
-
-    private int getRankTotalPoints(String rank) {
-        String query = "SELECT total_points FROM config WHERE `rank` = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, rank);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Total points found for rank: {}", rank);
-                    return resultSet.getInt("total_points");
-                } else {
-                    logger.warn("No total points found for rank: {}", rank);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching rank total points: ", e);
-        }
-        return 0;
-    }
-
-    private String getUserRank(String characterName) {
-        String query = "SELECT `rank` FROM members WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    logger.info("Rank found for character name: {}", characterName);
-                    return resultSet.getString("rank");
-                } else {
-                    logger.warn("No rank found for character name: {}", characterName);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching user rank: ", e);
-        }
-        return null;
-    }
-
-    private void updateUserPoints(String characterName, int pointsToAdd) {
-        String query = "UPDATE members SET points = points + ? WHERE username = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setInt(1, pointsToAdd);
-            preparedStatement.setString(2, characterName);
-            int rowsUpdated = preparedStatement.executeUpdate();
-            if (rowsUpdated > 0) {
-                logger.info("Successfully updated points for character name: {}", characterName);
-            } else {
-                logger.warn("No rows updated for character name: {}", characterName);
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while updating user points: ", e);
-        }
-    }
-
-    private int getPointsGivenInLast24Hours(String giver, String recipient) {
-        String query = "SELECT SUM(points_change) AS total_given FROM points_transactions " +
-                "WHERE related_user = ? AND character_name = ? AND timestamp >= NOW() - INTERVAL 1 DAY";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, giver);
-            preparedStatement.setString(2, recipient);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    return resultSet.getInt("total_given");
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while checking points given in last 24 hours: ", e);
-        }
-        return 0;
-    }
-
-    private int getPointsGivenInLastWeek(String giver, String recipient) {
-        String query = "SELECT SUM(points_change) AS total_given FROM points_transactions " +
-                "WHERE related_user = ? AND character_name = ? AND timestamp >= NOW() - INTERVAL 7 DAY";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, giver);
-            preparedStatement.setString(2, recipient);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    return resultSet.getInt("total_given");
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while checking points given in last 24 hours: ", e);
-        }
-        return 0;
-    }
-
-    private void logPointsTransaction(String characterName, int pointsChange, String reason, String relatedUser, int previousPoints, int newPoints) {
-        String query = "INSERT INTO points_transactions (character_name, points_change, reason, timestamp, related_user, previous_points, new_points) VALUES (?, ?, ?, NOW(), ?, ?, ?)";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            preparedStatement.setInt(2, pointsChange);
-            preparedStatement.setString(3, reason);
-            preparedStatement.setString(4, relatedUser);
-            preparedStatement.setInt(5, previousPoints);
-            preparedStatement.setInt(6, newPoints);
-            preparedStatement.executeUpdate();
-            logger.info("Points transaction logged for character: {}", characterName);
-        } catch (SQLException e) {
-            logger.error("SQL Exception while logging points transaction: ", e);
-        }
-    }
-
-    private String getPointsChannelId() {
-        String query = "SELECT value FROM disc_config WHERE key_name = 'points_channel_id'";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
-            if (resultSet.next()) {
-                logger.info("Points channel ID found.");
-                return resultSet.getString("value");
-            } else {
-                logger.warn("No points channel ID found.");
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception while fetching points channel ID: ", e);
-        }
-        return null;
+        return Database.getConnection();
     }
 
     private void postPointsUpdate(Server server, String message) {
-        String channelId = getPointsChannelId();
+        String channelId = ConfigRepository.getPointsChannelId();
         if (channelId != null) {
             server.getTextChannelById(channelId).ifPresent(channel -> {
                 logger.info("Posting points update to channel ID: {}", channelId);
@@ -228,7 +44,6 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
         }
     }
 
-
     @Override
     public void onSlashCommandCreate(SlashCommandCreateEvent event) {
         if (event.getSlashCommandInteraction().getCommandName().equalsIgnoreCase("points")) {
@@ -241,7 +56,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                     .respond().join();
 
             // Handle command processing asynchronously
-            CompletableFuture.runAsync(() -> processPointsCommand(event));
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getSlashCommandInteraction(), () -> processPointsCommand(event));
         }
     }
 
@@ -255,7 +70,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                     .setContent("Processing points for " + targetUser.getDisplayName(event.getUserContextMenuInteraction().getServer().get()) + "...")
                     .setFlags(MessageFlag.EPHEMERAL)
                     .respond().join();
-            CompletableFuture.runAsync(() -> processContextMenuCommand(event, 3));
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getUserContextMenuInteraction(), () -> processContextMenuCommand(event, 3));
         }
         if (event.getUserContextMenuInteraction().getCommandName().equalsIgnoreCase("Give 1 Point")) {
             logger.info("Points context menu command received.");
@@ -265,7 +80,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                     .setContent("Processing points for " + targetUser.getDisplayName(event.getUserContextMenuInteraction().getServer().get()) + "...")
                     .setFlags(MessageFlag.EPHEMERAL)
                     .respond().join();
-            CompletableFuture.runAsync(() -> processContextMenuCommand(event, 1));
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getUserContextMenuInteraction(), () -> processContextMenuCommand(event, 1));
         }
         if (event.getUserContextMenuInteraction().getCommandName().equalsIgnoreCase("Give 5 Points")) {
             logger.info("Points context menu command received.");
@@ -275,38 +90,56 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                     .setContent("Processing points for " + targetUser.getDisplayName(event.getUserContextMenuInteraction().getServer().get()) + "...")
                     .setFlags(MessageFlag.EPHEMERAL)
                     .respond().join();
-            CompletableFuture.runAsync(() -> processContextMenuCommand(event, 5));
+            BotExecutors.runFollowup(BotExecutors.interactive(), event.getUserContextMenuInteraction(), () -> processContextMenuCommand(event, 5));
         }
         if (event.getUserContextMenuInteraction().getCommandName().equalsIgnoreCase("Check Points")) {
             logger.info("Check Points context menu command received.");
+            BotExecutors.runCommand(BotExecutors.interactive(), event.getUserContextMenuInteraction(), () -> checkPoints(event));
+        }
+    }
 
-            User targetUser = event.getUserContextMenuInteraction().getTarget();
-            Server server = event.getUserContextMenuInteraction().getServer().orElse(null);
-
-            if (server == null) {
-                event.getUserContextMenuInteraction().createImmediateResponder()
-                        .setContent("Error: Couldn't retrieve server information.")
-                        .setFlags(MessageFlag.EPHEMERAL)
-                        .respond().join();
-                return;
-            }
+    private void checkPoints(UserContextMenuCommandEvent event) {
+        User targetUser = event.getUserContextMenuInteraction().getTarget();
+        Server server = event.getUserContextMenuInteraction().getServer().orElse(null);
 
-            // Find the target user's character name
-            String characterName = getCharacterNameByDiscordUid(targetUser.getId());
-            if (characterName == null) {
-                event.getUserContextMenuInteraction().createImmediateResponder()
-                        .setContent("Error: No OSRS character linked to this user.")
-                        .setFlags(MessageFlag.EPHEMERAL)
-                        .respond().join();
-                return;
-            }
+        if (server == null) {
+            event.getUserContextMenuInteraction().createImmediateResponder()
+                    .setContent("Error: Couldn't retrieve server information.")
+                    .setFlags(MessageFlag.EPHEMERAL)
+                    .respond().join();
+            return;
+        }
 
-            // Get points for the character
-            int points = getUserPoints(characterName);
+        // Find the target user's character name
+        String characterName = DiscordUserRepository.getCharacterName(targetUser.getId());
+        if (characterName == null) {
             event.getUserContextMenuInteraction().createImmediateResponder()
-                    .setContent(targetUser.getDisplayName(server) + " has " + points + " points.")
+                    .setContent("Error: No OSRS character linked to this user.")
                     .setFlags(MessageFlag.EPHEMERAL)
                     .respond().join();
+            return;
+        }
+
+        // Get points for the character
+        int points = MemberRepository.getPoints(characterName);
+        event.getUserContextMenuInteraction().createImmediateResponder()
+                .setContent(targetUser.getDisplayName(server) + " has " + points + " points.")
+                .setFlags(MessageFlag.EPHEMERAL)
+                .respond().join();
+    }
+
+    private String describeRefusal(PointsTransfer transfer, String mentionedCharacterName, String budgetHint) {
+        switch (transfer.getStatus()) {
+            case RECIPIENT_NOT_FOUND:
+                return mentionedCharacterName + " isn't a member of the clan.";
+            case INSUFFICIENT_BALANCE:
+                return "Cannot remove more points than the user currently has. " + mentionedCharacterName + " has " + transfer.getPreviousPoints() + " points.";
+            case RECIPIENT_LIMIT_REACHED:
+                return "You have given " + transfer.getGivenToRecipient() + " points to " + mentionedCharacterName + " in the last week. You can only give a maximum of 15 points per week to the same user.";
+            case BUDGET_EXCEEDED:
+                return "You have " + transfer.getBudgetRemaining() + " points to give currently. " + budgetHint;
+            default:
+                return "An error occurred while processing your request. Please try again later.";
         }
     }
 
@@ -331,7 +164,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                 return;
             }
 
-            String characterName = getCharacterNameByDiscordUid(discordUid);
+            String characterName = DiscordUserRepository.getCharacterName(discordUid);
             if (characterName == null) {
                 event.getSlashCommandInteraction().createFollowupMessageBuilder()
                         .setContent("Error: No character name associated with your Discord account. Please use the `/name` command to link your OSRS character name to your Discord account first.")
@@ -352,7 +185,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
             int points = pointsOpt.map(Long::intValue).orElse(0);
 
             if (mentionedUser != null && points != 0) {
-                String mentionedCharacterName = getCharacterNameByDiscordUid(mentionedUser.getId());
+                String mentionedCharacterName = DiscordUserRepository.getCharacterName(mentionedUser.getId());
                 logger.info("Attempting to modify points for: {}", mentionedCharacterName);
 
                 if (mentionedCharacterName == null) {
@@ -363,67 +196,33 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                     return;
                 }
 
-                int currentPoints = getUserPoints(mentionedCharacterName);
-
-                if (points < 0) {
-                    if (!hasPermissionToRemovePoints(server, user)) {
-                        event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                                .setContent("You do not have permission to remove points.")
-                                .setFlags(MessageFlag.EPHEMERAL)
-                                .send();
-                        return;
-                    }
-
-                    if (currentPoints + points < 0) {
-                        event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                                .setContent("Cannot remove more points than the user currently has. " + mentionedCharacterName + " has " + currentPoints + " points.")
-                                .setFlags(MessageFlag.EPHEMERAL)
-                                .send();
-                        return;
-                    }
-                }
-
-                if (characterName.equalsIgnoreCase(mentionedCharacterName)){
-                    event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                            .setContent("**Listen here... snowflake**: 302 is about giving! You can't award yourself points, but we appreciate that you tried.")
-                            .setFlags(MessageFlag.EPHEMERAL)
-                            .send();
-                    return;
-                }
-                /*
-                int pointsGivenInLast24Hours = getPointsGivenInLast24Hours(characterName, mentionedCharacterName);
-                if (pointsGivenInLast24Hours + points > 5) {
+                if (points < 0 && !hasPermissionToRemovePoints(server, user)) {
                     event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                            .setContent("You have already given " + pointsGivenInLast24Hours + " points to " + mentionedCharacterName + " in the last 24 hours. You can only give a maximum of 5 points per 24 hours to the same user.")
+                            .setContent("You do not have permission to remove points.")
                             .setFlags(MessageFlag.EPHEMERAL)
                             .send();
                     return;
                 }
-                 */
-                int pointsGivenInLastWeek = getPointsGivenInLastWeek(characterName, mentionedCharacterName);
-                if (pointsGivenInLastWeek + points > 15) {
+
+                if (characterName.equalsIgnoreCase(mentionedCharacterName)){
                     event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                            .setContent("You have given " + pointsGivenInLastWeek + " points to " + mentionedCharacterName + " in the last week. You can only give a maximum of 15 points per week to the same user.")
+                            .setContent("**Listen here... snowflake**: 302 is about giving! You can't award yourself points, but we appreciate that you tried.")
                             .setFlags(MessageFlag.EPHEMERAL)
                             .send();
                     return;
                 }
-                int userPoints = getUserPoints(characterName);
-                String userRank = getUserRank(characterName);
-                int givenPoints = getUserGivenPoints(characterName);
-                int totalPoints = getRankTotalPoints(userRank);
-                if ((givenPoints + points) > totalPoints){
+
+                PointsTransfer transfer = PointsLedger.transfer(characterName, mentionedCharacterName, points, reason, LIMITS);
+                if (!transfer.isApplied()) {
                     event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                            .setContent("You have " + Math.subtractExact(totalPoints, givenPoints) + " points to give currently. You need " + points + ".")
+                            .setContent(describeRefusal(transfer, mentionedCharacterName, "You need " + points + "."))
                             .setFlags(MessageFlag.EPHEMERAL)
                             .send();
                     return;
                 }
 
-                updateUserPoints(mentionedCharacterName, points);
-                int newPoints = currentPoints + points;
-                logPointsTransaction(mentionedCharacterName, points, reason, characterName, currentPoints, newPoints);
-
+                int newPoints = transfer.getNewPoints();
+                RankEvaluationQueue.enqueue(mentionedCharacterName);
                 String action = points > 0 ? "Received" : "Lost";
                 postPointsUpdate(server, mentionedCharacterName + " now has " + newPoints + " points! " + action + " " + Math.abs(points) + " from " + characterName + " for " + reason);
 
@@ -432,10 +231,10 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                         .setFlags(MessageFlag.EPHEMERAL)
                         .send();
             } else {
-                int userPoints = getUserPoints(characterName);
-                String userRank = getUserRank(characterName);
-                int givenPoints = getUserGivenPoints(characterName);
-                int totalPoints = getRankTotalPoints(userRank);
+                int userPoints = MemberRepository.getPoints(characterName);
+                String userRank = MemberRepository.getRank(characterName);
+                int givenPoints = PointsLedger.getGivenThisWeek(characterName);
+                int totalPoints = ConfigRepository.getRankTotalPoints(userRank);
                 int availablePoints = totalPoints - givenPoints;
 
                 String pointsReceivedFromOthers = getPointsReceivedFromOthers(characterName);
@@ -470,7 +269,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                 return;
             }
 
-            String characterName = getCharacterNameByDiscordUid(discordUid);
+            String characterName = DiscordUserRepository.getCharacterName(discordUid);
             if (characterName == null) {
                 event.getUserContextMenuInteraction().createFollowupMessageBuilder()
                         .setContent("Error: No character name associated with your Discord account. Please use the `/name` command to link your OSRS character name to your Discord account first.")
@@ -491,7 +290,7 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
             // Default points for context menu
             String reason = "being awesome!"; // Default reason for context menu
 
-            String mentionedCharacterName = getCharacterNameByDiscordUid(mentionedUser.getId());
+            String mentionedCharacterName = DiscordUserRepository.getCharacterName(mentionedUser.getId());
             if (mentionedCharacterName == null) {
                 event.getUserContextMenuInteraction().createFollowupMessageBuilder()
                         .setContent(mentionedUser.getDisplayName(server) + " isn't registered to a character.")
@@ -507,62 +306,25 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
                 return;
             }
 
-            int currentPoints = getUserPoints(mentionedCharacterName);
-
-            if (points < 0) {
-                if (!hasPermissionToRemovePoints(server, user)) {
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("You do not have permission to remove points.")
-                            .setFlags(MessageFlag.EPHEMERAL)
-                            .send();
-                    return;
-                }
-
-                if (currentPoints + points < 0) {
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("Cannot remove more points than the user currently has. " + mentionedCharacterName + " has " + currentPoints + " points.")
-                            .setFlags(MessageFlag.EPHEMERAL)
-                            .send();
-                    return;
-                }
-            }
-
-                /*
-                int pointsGivenInLast24Hours = getPointsGivenInLast24Hours(characterName, mentionedCharacterName);
-                if (pointsGivenInLast24Hours + points > 5) {
-                    event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                            .setContent("You have already given " + pointsGivenInLast24Hours + " points to " + mentionedCharacterName + " in the last 24 hours. You can only give a maximum of 5 points per 24 hours to the same user.")
-                            .setFlags(MessageFlag.EPHEMERAL)
-                            .send();
-                    return;
-                }
-                 */
-            int pointsGivenInLastWeek = getPointsGivenInLastWeek(characterName, mentionedCharacterName);
-            if (pointsGivenInLastWeek + points > 15) {
+            if (points < 0 && !hasPermissionToRemovePoints(server, user)) {
                 event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                        .setContent("You have given " + pointsGivenInLastWeek + " points to " + mentionedCharacterName + " in the last week. You can only give a maximum of 15 points per week to the same user.")
+                        .setContent("You do not have permission to remove points.")
                         .setFlags(MessageFlag.EPHEMERAL)
                         .send();
                 return;
             }
 
-            int userPoints = getUserPoints(characterName);
-            String userRank = getUserRank(characterName);
-            int givenPoints = getUserGivenPoints(characterName);
-            int totalPoints = getRankTotalPoints(userRank);
-            if ((givenPoints + points) > totalPoints){
+            PointsTransfer transfer = PointsLedger.transfer(characterName, mentionedCharacterName, points, reason, LIMITS);
+            if (!transfer.isApplied()) {
                 event.getUserContextMenuInteraction().createFollowupMessageBuilder()
-                        .setContent("You have " + Math.subtractExact(totalPoints, givenPoints) + " points to give currently. You must wait.")
+                        .setContent(describeRefusal(transfer, mentionedCharacterName, "You must wait."))
                         .setFlags(MessageFlag.EPHEMERAL)
                         .send();
                 return;
             }
 
-            // Update points and log the transaction
-            updateUserPoints(mentionedCharacterName, points);
-            int newPoints = currentPoints + points;
-            logPointsTransaction(mentionedCharacterName, points, reason, characterName, currentPoints, newPoints);
-
+            int newPoints = transfer.getNewPoints();
+            RankEvaluationQueue.enqueue(mentionedCharacterName);
             String action = points > 0 ? "Received" : "Lost";
             postPointsUpdate(server, mentionedCharacterName + " now has " + newPoints + " points! " + action + " " + Math.abs(points) + " from " + characterName + " for " + reason);
 
@@ -579,12 +341,12 @@ public class PointsCommand implements SlashCommandCreateListener, UserContextMen
         }
     }
 
-
     private void handlePointsTransaction(Server server, String characterName, User mentionedUser, int points, String reason) {
-        String mentionedCharacterName = getCharacterNameByDiscordUid(mentionedUser.getId());
-        updateUserPoints(mentionedCharacterName, points);
+        String mentionedCharacterName = DiscordUserRepository.getCharacterName(mentionedUser.getId());
+        MemberRepository.addPoints(mentionedCharacterName, points);
+        RankEvaluationQueue.enqueue(mentionedCharacterName);
 
-        String channelId = getPointsChannelId();
+        String channelId = ConfigRepository.getPointsChannelId();
         if (channelId != null) {
             server.getTextChannelById(channelId).ifPresent(channel ->
                 channel.sendMessage("User " + mentionedUser.getDisplayName(server) +
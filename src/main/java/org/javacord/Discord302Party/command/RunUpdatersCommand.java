@@ -5,12 +5,12 @@ import org.apache.logging.log4j.Logger;
 import org.javacord.Discord302Party.service.RankRequirementUpdater;
 import org.javacord.Discord302Party.service.UserVerificationService;
 import org.javacord.Discord302Party.service.WOMGroupUpdater;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.event.interaction.SlashCommandCreateEvent;
 import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 import org.javacord.api.util.logging.ExceptionLogger;
 
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
 
 public class RunUpdatersCommand implements SlashCommandCreateListener {
 
@@ -36,23 +36,26 @@ public class RunUpdatersCommand implements SlashCommandCreateListener {
                     .respond().join();
 
             // Run all updaters asynchronously
-            CompletableFuture.runAsync(() -> {
-                // Run WOMGroupUpdater
-                womGroupUpdater.updateGroupMembers();
-
-                // Run RankRequirementUpdater
-                rankRequirementUpdater.validateAllRankRequirements();
-
-                // Run UserVerificationService
-                userVerificationService.verifyAllUsers(Objects.requireNonNull(event.getSlashCommandInteraction().getServer().orElse(null)));
-            }).exceptionally(e -> {
-                // Handle any exceptions that occur during the updater runs
-                logger.error("An error occurred while running the updaters: ", e);
-                event.getSlashCommandInteraction().createFollowupMessageBuilder()
-                        .setContent("Error: An error occurred while running the updaters.")
-                        .send().exceptionally(ExceptionLogger.get());
-                return null;
-            }).thenRun(() -> {
+            BotExecutors.runFollowup(BotExecutors.background(), event.getSlashCommandInteraction(), () -> {
+                try {
+                    // Run WOMGroupUpdater
+                    womGroupUpdater.updateGroupMembers();
+
+                    // Run RankRequirementUpdater
+                    rankRequirementUpdater.validateAllRankRequirements();
+
+                    // Run UserVerificationService
+                    userVerificationService.verifyAllUsers(Objects.requireNonNull(event.getSlashCommandInteraction().getServer().orElse(null)));
+                } catch (RuntimeException e) {
+                    // Handle any exceptions that occur during the updater runs
+                    BotExecutors.recordFailure(BotExecutors.background());
+                    logger.error("An error occurred while running the updaters: ", e);
+                    event.getSlashCommandInteraction().createFollowupMessageBuilder()
+                            .setContent("Error: An error occurred while running the updaters.")
+                            .send().exceptionally(ExceptionLogger.get());
+                    return;
+                }
+
                 // Respond with a success message once all updaters have completed
                 event.getSlashCommandInteraction().createFollowupMessageBuilder()
                         .setContent("WOMGroupUpdater, RankRequirementUpdater, and UserVerificationService have successfully run.")
@@ -1,6 +1,7 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.user.User;
 import org.javacord.api.event.interaction.SlashCommandCreateEvent;
 import org.javacord.api.listener.interaction.SlashCommandCreateListener;
@@ -12,48 +13,47 @@ public class ValidateRankRequirementsCommand implements SlashCommandCreateListen
 
     private static final Logger logger = LogManager.getLogger(ValidateRankRequirementsCommand.class);
 
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return Database.getConnection();
     }
 
     @Override
     public void onSlashCommandCreate(SlashCommandCreateEvent event) {
         if (event.getSlashCommandInteraction().getCommandName().equalsIgnoreCase("validate_rank")) {
-            User targetUser = event.getSlashCommandInteraction().getOptionUserValueByName("user").orElse(null);
-            String rank = event.getSlashCommandInteraction().getOptionStringValueByName("rank").orElse("");
-            String validatedBy = event.getSlashCommandInteraction().getUser().getDiscriminatedName();
+            BotExecutors.runCommand(BotExecutors.interactive(), event.getSlashCommandInteraction(), () -> handleValidateRank(event));
+        }
+    }
 
-            if (targetUser != null) {
-                String characterName = getCharacterNameByDiscordUid(targetUser.getId());
+    private void handleValidateRank(SlashCommandCreateEvent event) {
+        User targetUser = event.getSlashCommandInteraction().getOptionUserValueByName("user").orElse(null);
+        String rank = event.getSlashCommandInteraction().getOptionStringValueByName("rank").orElse("");
+        String validatedBy = event.getSlashCommandInteraction().getUser().getDiscriminatedName();
 
-                if (characterName != null) {
-                    try (Connection connection = connect()) {
-                        String query = "INSERT INTO validation_log (character_name, `rank`, validated_by) VALUES (?, ?, ?)";
-                        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-                            preparedStatement.setString(1, characterName);
-                            preparedStatement.setString(2, rank);
-                            preparedStatement.setString(3, validatedBy);
-                            preparedStatement.executeUpdate();
-                        }
-                        event.getSlashCommandInteraction().createImmediateResponder()
-                                .setContent("Rank validation logged successfully for " + characterName)
-                                .respond().join();
-                    } catch (SQLException e) {
-                        logger.error("Error validating rank", e);
-                        event.getSlashCommandInteraction().createImmediateResponder()
-                                .setContent("Failed to validate rank.")
-                                .respond().join();
+        if (targetUser != null) {
+            String characterName = getCharacterNameByDiscordUid(targetUser.getId());
+
+            if (characterName != null) {
+                try (Connection connection = connect()) {
+                    String query = "INSERT INTO validation_log (character_name, `rank`, validated_by) VALUES (?, ?, ?)";
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                        preparedStatement.setString(1, characterName);
+                        preparedStatement.setString(2, rank);
+                        preparedStatement.setString(3, validatedBy);
+                        preparedStatement.executeUpdate();
                     }
-                } else {
                     event.getSlashCommandInteraction().createImmediateResponder()
-                            .setContent("Character name not found.")
+                            .setContent("Rank validation logged successfully for " + characterName)
+                            .respond().join();
+                } catch (SQLException e) {
+                    logger.error("Error validating rank", e);
+                    event.getSlashCommandInteraction().createImmediateResponder()
+                            .setContent("Failed to validate rank.")
                             .respond().join();
                 }
+            } else {
+                event.getSlashCommandInteraction().createImmediateResponder()
+                        .setContent("Character name not found.")
+                        .respond().join();
             }
         }
     }
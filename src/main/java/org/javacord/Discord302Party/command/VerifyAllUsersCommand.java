@@ -1,13 +1,13 @@
 package org.javacord.Discord302Party.command;
 
 import org.javacord.Discord302Party.service.UserVerificationService;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.event.interaction.SlashCommandCreateEvent;
 import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 import org.javacord.api.util.logging.ExceptionLogger;
 import org.javacord.api.interaction.callback.InteractionOriginalResponseUpdater;
 
-import java.util.concurrent.CompletableFuture;
 
 public class VerifyAllUsersCommand implements SlashCommandCreateListener {
 
@@ -36,13 +36,15 @@ public class VerifyAllUsersCommand implements SlashCommandCreateListener {
                     .respond().join();
 
             // Run the verification process asynchronously
-            CompletableFuture.runAsync(() -> {
-                userVerificationService.verifyAllUsers(server);
-                updater.setContent("Verification process completed.").update().exceptionally(ExceptionLogger.get());
-            }).exceptionally(e -> {
-                updater.setContent("Error: An error occurred during the verification process.").update().exceptionally(ExceptionLogger.get());
-                e.printStackTrace();
-                return null;
+            BotExecutors.runFollowup(BotExecutors.background(), event.getSlashCommandInteraction(), () -> {
+                try {
+                    userVerificationService.verifyAllUsers(server);
+                    updater.setContent("Verification process completed.").update().exceptionally(ExceptionLogger.get());
+                } catch (RuntimeException e) {
+                    BotExecutors.recordFailure(BotExecutors.background());
+                    updater.setContent("Error: An error occurred during the verification process.").update().exceptionally(ExceptionLogger.get());
+                    e.printStackTrace();
+                }
             });
         }
     }
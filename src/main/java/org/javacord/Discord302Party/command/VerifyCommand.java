@@ -1,6 +1,8 @@
 package org.javacord.Discord302Party.command;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.utils.BotExecutors;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
 import org.javacord.api.event.interaction.SlashCommandCreateEvent;
@@ -10,34 +12,8 @@ import java.sql.*;
 
 public class VerifyCommand implements SlashCommandCreateListener {
 
-    // Load environment variables
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
-
-    private String getCharacterNameByDiscordUid(long discordUid) {
-        System.out.println("Checking for character name linked to Discord UID: " + discordUid); // Log the Discord UID
-        String query = "SELECT character_name FROM discord_users WHERE discord_uid = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setLong(1, discordUid);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                String characterName = resultSet.getString("character_name");
-                System.out.println("Found character name: " + characterName); // Log the found character name
-                return characterName;
-            } else {
-                System.out.println("No character name found for Discord UID: " + discordUid); // Log if nothing is found
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return Database.getConnection();
     }
 
     private boolean verifyCharacter(String characterName, String verificationKey) {
@@ -97,50 +73,54 @@ public class VerifyCommand implements SlashCommandCreateListener {
     @Override
     public void onSlashCommandCreate(SlashCommandCreateEvent event) {
         if (event.getSlashCommandInteraction().getCommandName().equalsIgnoreCase("verify")) {
-            String verificationKey = event.getSlashCommandInteraction()
-                    .getOptionStringValueByName("verification_key")
-                    .orElse("Unknown");
+            BotExecutors.runCommand(BotExecutors.interactive(), event.getSlashCommandInteraction(), () -> handleVerify(event));
+        }
+    }
 
-            User user = event.getSlashCommandInteraction().getUser();
-            long discordUid = user.getId();
-            System.out.println("User Discord UID: " + discordUid); // Log the user's Discord UID
-            Server server = event.getSlashCommandInteraction().getServer().orElse(null);
+    private void handleVerify(SlashCommandCreateEvent event) {
+        String verificationKey = event.getSlashCommandInteraction()
+                .getOptionStringValueByName("verification_key")
+                .orElse("Unknown");
 
-            if (server == null) {
-                event.getSlashCommandInteraction().createImmediateResponder()
-                        .setContent("Error: Couldn't retrieve server information.")
-                        .respond();
-                return;
-            }
+        User user = event.getSlashCommandInteraction().getUser();
+        long discordUid = user.getId();
+        System.out.println("User Discord UID: " + discordUid); // Log the user's Discord UID
+        Server server = event.getSlashCommandInteraction().getServer().orElse(null);
 
-            // Retrieve the character name associated with the user's Discord UID
-            String characterName = getCharacterNameByDiscordUid(discordUid);
-            if (characterName == null) {
+        if (server == null) {
+            event.getSlashCommandInteraction().createImmediateResponder()
+                    .setContent("Error: Couldn't retrieve server information.")
+                    .respond();
+            return;
+        }
+
+        // Retrieve the character name associated with the user's Discord UID
+        String characterName = DiscordUserRepository.getCharacterName(discordUid);
+        if (characterName == null) {
+            event.getSlashCommandInteraction().createImmediateResponder()
+                    .setContent("Error: No character name associated with your Discord account. Please use the `/name` command to link your OSRS character name to your Discord account first.")
+                    .respond();
+            return;
+        }
+
+        // Verify the character and key
+        if (verifyCharacter(characterName, verificationKey)) {
+            int replitUserId = getReplitUserId(characterName, verificationKey);
+            if (replitUserId != -1) {
+                linkDiscordToReplit(discordUid, replitUserId, characterName);
+                markCharacterAsVerified(characterName);
                 event.getSlashCommandInteraction().createImmediateResponder()
-                        .setContent("Error: No character name associated with your Discord account. Please use the `/name` command to link your OSRS character name to your Discord account first.")
+                        .setContent("Your account has been successfully verified!")
                         .respond();
-                return;
-            }
-
-            // Verify the character and key
-            if (verifyCharacter(characterName, verificationKey)) {
-                int replitUserId = getReplitUserId(characterName, verificationKey);
-                if (replitUserId != -1) {
-                    linkDiscordToReplit(discordUid, replitUserId, characterName);
-                    markCharacterAsVerified(characterName);
-                    event.getSlashCommandInteraction().createImmediateResponder()
-                            .setContent("Your account has been successfully verified!")
-                            .respond();
-                } else {
-                    event.getSlashCommandInteraction().createImmediateResponder()
-                            .setContent("Error: Could not retrieve your Replit user ID.")
-                            .respond();
-                }
             } else {
                 event.getSlashCommandInteraction().createImmediateResponder()
-                        .setContent("Verification failed: The verification key provided does not match the character name associated with your account.")
+                        .setContent("Error: Could not retrieve your Replit user ID.")
                         .respond();
             }
+        } else {
+            event.getSlashCommandInteraction().createImmediateResponder()
+                    .setContent("Verification failed: The verification key provided does not match the character name associated with your account.")
+                    .respond();
         }
     }
 }
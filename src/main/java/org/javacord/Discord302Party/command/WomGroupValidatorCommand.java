@@ -1,29 +1,24 @@
 package org.javacord.Discord302Party.command;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.service.WomJsonDecoder;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.BotHttpClient;
 import org.javacord.api.event.interaction.SlashCommandCreateEvent;
 import org.javacord.api.listener.interaction.SlashCommandCreateListener;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
 import java.sql.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
 
 public class WomGroupValidatorCommand implements SlashCommandCreateListener {
 
     private static final Logger logger = LogManager.getLogger(WomGroupValidatorCommand.class);
     private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
     private static final String WOM_API_KEY = dotenv.get("WOM_API_KEY");
     private static final String GROUP_ID = dotenv.get("GROUP_ID");
 
@@ -36,38 +31,31 @@ public class WomGroupValidatorCommand implements SlashCommandCreateListener {
                     .respond();
 
             // Run validation asynchronously
-            CompletableFuture.runAsync(this::validateGroupMembers)
-                    .thenRun(() -> logger.info("Validation complete"))
-                    .exceptionally(e -> {
-                        logger.error("Error during async validation", e);
-                        return null;
-                    });
+            BotExecutors.runFollowup(BotExecutors.background(), event.getSlashCommandInteraction(), () -> {
+                try {
+                    validateGroupMembers();
+                    logger.info("Validation complete");
+                } catch (RuntimeException e) {
+                    BotExecutors.recordFailure(BotExecutors.background());
+                    logger.error("Error during async validation", e);
+                }
+            });
         }
     }
 
     public void validateGroupMembers() {
         try {
-            // Fetch group members from the Wise Old Man API
-            String jsonString = getGroupDataFromWOM();
-
-            // Log the response to ensure it's valid
-            logger.info("WOM API Response: {}", jsonString);
-
-            // Parse the JSON response and retrieve memberships
-            JsonNode memberships = new ObjectMapper().readTree(jsonString).get("memberships");
+            // Fetch group members from the Wise Old Man API, decoded while the response streams in
+            List<Member> groupMembers = getGroupDataFromWOM();
+            logger.info("WOM API returned {} members", groupMembers.size());
 
             try (Connection connection = connect()) {
-                for (JsonNode membership : memberships) {
-                    JsonNode player = membership.get("player");
-
-                    // Get all necessary player info
-                    String username = player.get("username").asText();
-                    int womId = player.get("id").asInt();
-                    String role = membership.get("role").asText();
-                    Timestamp joinDate = Timestamp.valueOf(membership.get("createdAt").asText().replace("T", " ").replace("Z", ""));
+                for (Member groupMember : groupMembers) {
+                    // The validator stores temporary roles as the rank as well
+                    String role = groupMember.getRank() != null ? groupMember.getRank() : groupMember.getTemporaryRank();
 
                     // Create a new Member instance
-                    Member member = new Member(womId, username, role, new Timestamp(System.currentTimeMillis()), joinDate, null);
+                    Member member = new Member(groupMember.getWOMId(), groupMember.getUsername(), role, new Timestamp(System.currentTimeMillis()), groupMember.getJoinDate(), null);
 
                     // Check if the member exists in the database
                     if (!isMemberInDatabase(connection, member.getUsername())) {
@@ -83,23 +71,11 @@ public class WomGroupValidatorCommand implements SlashCommandCreateListener {
         }
     }
 
-    private String getGroupDataFromWOM() throws IOException {
-        String urlString = "https://api.wiseoldman.net/v2/groups/" + GROUP_ID + "?limit=50";
-        URL url = new URL(urlString);
-        HttpsURLConnection conn = (HttpsURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("x-api-key", WOM_API_KEY);
-        conn.setRequestProperty("User-Agent", "DiscordBot");
-
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder content = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
-        }
-        in.close();
-
-        return content.toString();
+    private List<Member> getGroupDataFromWOM() throws IOException {
+        String urlString = BotHttpClient.WOM_BASE_URL + "/groups/" + GROUP_ID + "?limit=50";
+        return BotHttpClient.get(urlString, WomJsonDecoder::decodeGroupMembers,
+                "x-api-key", WOM_API_KEY,
+                "User-Agent", "DiscordBot");
     }
 
     private boolean isMemberInDatabase(Connection connection, String username) throws SQLException {
@@ -128,6 +104,6 @@ public class WomGroupValidatorCommand implements SlashCommandCreateListener {
     }
 
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return Database.getConnection();
     }
 }
@@ -0,0 +1,150 @@
+package org.javacord.Discord302Party.database;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, least-recently-used cache of the discord_uid <-> character_name mapping in both directions. The links are
+ * kept in one map by discord_uid, with an index by character name that loses an entry whenever the map does, so the two
+ * directions can't disagree. Entries are only dropped by eviction or by an explicit invalidation when a link changes.
+ * <p>
+ * A link read from the database is only cached if nothing was invalidated since the read started, see
+ * {@link #generation()}, so a read racing a write can't bring back the old link.
+ */
+final class CharacterNameCache {
+
+    private static final Dotenv dotenv = Dotenv.load();
+    private static final int MAX_ENTRIES = Integer.parseInt(dotenv.get("NAME_CACHE_SIZE", "2000"));
+
+    private final Map<Long, String> namesByUid = new BoundedMap(MAX_ENTRIES);
+    private final Map<String, Long> uidsByName = new HashMap<>();
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder stalePuts = new LongAdder();
+
+    CharacterNameCache() {
+        MetricsReporter.register("name-cache", this::describe);
+    }
+
+    synchronized String getCharacterName(long discordUid) {
+        return record(namesByUid.get(discordUid));
+    }
+
+    synchronized Long getDiscordUid(String characterName) {
+        Long discordUid = uidsByName.get(key(characterName));
+        if (discordUid != null) {
+            // Counts as a use of the link for the eviction order
+            namesByUid.get(discordUid);
+        }
+        return record(discordUid);
+    }
+
+    /**
+     * Returns the number of invalidations so far. Take it before reading a link from the database and pass it to
+     * {@link #put(long, String, long)}.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a link read from the database, unless a link was invalidated since the read started.
+     */
+    synchronized void put(long discordUid, String characterName, long readGeneration) {
+        if (readGeneration != generation) {
+            stalePuts.increment();
+            return;
+        }
+        String previousName = namesByUid.remove(discordUid);
+        if (previousName != null) {
+            uidsByName.remove(key(previousName), discordUid);
+        }
+        Long previousUid = uidsByName.remove(key(characterName));
+        if (previousUid != null) {
+            namesByUid.remove(previousUid);
+        }
+        namesByUid.put(discordUid, characterName);
+        uidsByName.put(key(characterName), discordUid);
+    }
+
+    /**
+     * Forgets the link of the Discord account in both directions.
+     */
+    synchronized void invalidate(long discordUid) {
+        generation++;
+        String characterName = namesByUid.remove(discordUid);
+        if (characterName != null) {
+            uidsByName.remove(key(characterName), discordUid);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Forgets the link of the character in both directions.
+     */
+    synchronized void invalidate(String characterName) {
+        generation++;
+        Long discordUid = uidsByName.remove(key(characterName));
+        if (discordUid != null) {
+            namesByUid.remove(discordUid);
+        }
+        invalidations.increment();
+    }
+
+    private <T> T record(T value) {
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    // MySQL compares character names case-insensitively, so the cache does too
+    private static String key(String characterName) {
+        return characterName.toLowerCase(Locale.ROOT);
+    }
+
+    String describe() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        int size;
+        synchronized (this) {
+            size = namesByUid.size();
+        }
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.1f%% invalidations=%d stalePuts=%d",
+                size, MAX_ENTRIES, hitCount, lookups - hitCount,
+                lookups == 0 ? 0.0 : hitCount * 100.0 / lookups, invalidations.sum(), stalePuts.sum());
+    }
+
+    private final class BoundedMap extends LinkedHashMap<Long, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        BoundedMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            // Evicted together with its entry in the name index
+            uidsByName.remove(key(eldest.getValue()), eldest.getKey());
+            return true;
+        }
+    }
+}
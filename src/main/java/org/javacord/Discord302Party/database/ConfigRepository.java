@@ -0,0 +1,58 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lookups on the rank config table, through {@link RankLadder}, and queries on the disc_config key/value table.
+ */
+public final class ConfigRepository {
+
+    private static final Logger logger = LogManager.getLogger(ConfigRepository.class);
+
+    private ConfigRepository() {
+    }
+
+    /**
+     * Returns how many points a member of the rank may give per week, or 0 if the rank isn't configured.
+     */
+    public static int getRankTotalPoints(String rank) {
+        RankLadder ladder = RankLadder.get();
+        if (!ladder.contains(rank)) {
+            logger.warn("No total points found for rank: {}", rank);
+        }
+        return ladder.getTotalPoints(rank);
+    }
+
+    /**
+     * Returns a value from the disc_config table, or null if the key isn't set.
+     */
+    public static String getDiscordConfigValue(String keyName) {
+        String query = "SELECT value FROM disc_config WHERE key_name = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, keyName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString("value");
+                }
+                logger.warn("No value configured for {}.", keyName);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching config value {}: ", keyName, e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the ID of the channel points changes are posted to.
+     */
+    public static String getPointsChannelId() {
+        return getDiscordConfigValue("points_channel_id");
+    }
+}
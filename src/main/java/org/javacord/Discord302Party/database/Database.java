@@ -0,0 +1,211 @@
+package org.javacord.Discord302Party.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide connection pool. Every command and service borrows its connections from here
+ * instead of opening a new MySQL connection per query.
+ */
+public final class Database {
+
+    private static final Logger logger = LogManager.getLogger(Database.class);
+    private static final Dotenv dotenv = Dotenv.load();
+
+    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
+    private static final String USER = dotenv.get("DB_USER");
+    private static final String PASS = dotenv.get("DB_PASS");
+
+    // Pool settings, all overridable from the .env file
+    private static final int POOL_SIZE = Integer.parseInt(dotenv.get("DB_POOL_SIZE", "10"));
+    private static final int MIN_IDLE = Integer.parseInt(dotenv.get("DB_POOL_MIN_IDLE", "2"));
+    private static final long IDLE_TIMEOUT = Long.parseLong(dotenv.get("DB_POOL_IDLE_TIMEOUT_MS", "600000"));
+    private static final long MAX_LIFETIME = Long.parseLong(dotenv.get("DB_POOL_MAX_LIFETIME_MS", "1800000"));
+    private static final long CONNECTION_TIMEOUT = Long.parseLong(dotenv.get("DB_POOL_CONNECTION_TIMEOUT_MS", "10000"));
+    private static final long VALIDATION_TIMEOUT = Long.parseLong(dotenv.get("DB_POOL_VALIDATION_TIMEOUT_MS", "3000"));
+    private static final long KEEPALIVE_TIME = Long.parseLong(dotenv.get("DB_POOL_KEEPALIVE_MS", "300000"));
+    private static final long LEAK_DETECTION_THRESHOLD = Long.parseLong(dotenv.get("DB_POOL_LEAK_DETECTION_MS", "60000"));
+
+    private static final PoolMetrics metrics = new PoolMetrics();
+    private static volatile DataSource dataSource;
+
+    private Database() {
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the connection returns it to the pool.
+     */
+    public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
+    }
+
+    public static DataSource getDataSource() {
+        DataSource current = dataSource;
+        if (current == null) {
+            synchronized (Database.class) {
+                current = dataSource;
+                if (current == null) {
+                    current = createPool();
+                    dataSource = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Uses the given data source instead of the MySQL pool, e.g. an embedded database for benchmarks.
+     * Must be called before the first connection is requested.
+     */
+    public static synchronized void useDataSource(DataSource replacement) {
+        if (dataSource != null) {
+            throw new IllegalStateException("The database has already been initialized.");
+        }
+        dataSource = replacement;
+    }
+
+    /**
+     * Closes the pool and all of its connections.
+     */
+    public static synchronized void shutdown() {
+        if (dataSource instanceof HikariDataSource) {
+            ((HikariDataSource) dataSource).close();
+            logger.info("Database pool closed.");
+        }
+    }
+
+    /**
+     * Builds a "?, ?, ?" list for an IN clause with the given number of parameters.
+     */
+    public static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Splits the values into lists of at most {@code size} elements, so bulk lookups don't build unbounded IN clauses.
+     */
+    public static <T> List<List<T>> chunks(Collection<T> values, int size) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+        return chunks;
+    }
+
+    private static DataSource createPool() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("discord302party-db");
+        config.setJdbcUrl(DB_URL);
+        config.setUsername(USER);
+        config.setPassword(PASS);
+
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(MIN_IDLE);
+        config.setIdleTimeout(IDLE_TIMEOUT);
+        config.setMaxLifetime(MAX_LIFETIME);
+        config.setConnectionTimeout(CONNECTION_TIMEOUT);
+        // Connections are validated with Connection.isValid() before they are handed out
+        config.setValidationTimeout(VALIDATION_TIMEOUT);
+        config.setKeepaliveTime(KEEPALIVE_TIME);
+        config.setLeakDetectionThreshold(LEAK_DETECTION_THRESHOLD);
+
+        // Recommended MySQL Connector/J settings for pooled connections
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        // Send JDBC batches as multi-row statements instead of one round trip per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+        config.setMetricsTrackerFactory((poolName, poolStats) -> metrics);
+
+        HikariDataSource pool = new HikariDataSource(config);
+        MetricsReporter.register("db-pool", Database::describePool);
+        logger.info("Database pool started (max {} connections, min idle {}).", POOL_SIZE, MIN_IDLE);
+        return pool;
+    }
+
+    /**
+     * Returns a one-line summary of the pool state and how long callers waited for a connection.
+     */
+    public static String describePool() {
+        StringBuilder description = new StringBuilder();
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if (pool != null) {
+                description.append("active=").append(pool.getActiveConnections())
+                        .append(" idle=").append(pool.getIdleConnections())
+                        .append(" total=").append(pool.getTotalConnections())
+                        .append(" waiting=").append(pool.getThreadsAwaitingConnection())
+                        .append(' ');
+            }
+        }
+        return description.append(metrics).toString();
+    }
+
+    /**
+     * Collects how long callers wait for a connection and how long they hold on to it.
+     */
+    private static final class PoolMetrics implements IMetricsTracker {
+
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final AtomicLong maxAcquireNanos = new AtomicLong();
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder created = new LongAdder();
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public String toString() {
+            long count = acquired.sum();
+            double avgWaitMillis = count == 0 ? 0 : acquireNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+            double avgUsageMillis = count == 0 ? 0 : usageMillis.sum() / (double) count;
+            return String.format("acquired=%d avgWait=%.2fms maxWait=%.2fms avgUsage=%.1fms timeouts=%d created=%d",
+                    count, avgWaitMillis, maxAcquireNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                    avgUsageMillis, timeouts.sum(), created.sum());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.javacord.Discord302Party.database;
+
+/**
+ * A row of the discord_users table: a Discord account linked to an OSRS character.
+ */
+public class DiscordUser {
+
+    private final long discordUid;
+    private final String characterName;
+    private final String rank;
+    private final long replitUserId;
+
+    public DiscordUser(long discordUid, String characterName, String rank, long replitUserId) {
+        this.discordUid = discordUid;
+        this.characterName = characterName;
+        this.rank = rank;
+        this.replitUserId = replitUserId;
+    }
+
+    public long getDiscordUid() {
+        return discordUid;
+    }
+
+    public String getCharacterName() {
+        return characterName;
+    }
+
+    public String getRank() {
+        return rank;
+    }
+
+    public long getReplitUserId() {
+        return replitUserId;
+    }
+}
@@ -0,0 +1,193 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries on the discord_users and temporary_ranks tables, which link Discord accounts to OSRS characters.
+ */
+public final class DiscordUserRepository {
+
+    private static final Logger logger = LogManager.getLogger(DiscordUserRepository.class);
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final CharacterNameCache cache = new CharacterNameCache();
+
+    private DiscordUserRepository() {
+    }
+
+    /**
+     * Returns the character name linked to the Discord account, or null if the account isn't linked.
+     */
+    public static String getCharacterName(long discordUid) {
+        String cached = cache.getCharacterName(discordUid);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation();
+        String query = "SELECT character_name FROM discord_users WHERE discord_uid = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, discordUid);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    String characterName = resultSet.getString("character_name");
+                    cache.put(discordUid, characterName, generation);
+                    return characterName;
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching character name for Discord UID {}: ", discordUid, e);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves many Discord accounts at once. Accounts that aren't linked are missing from the result.
+     */
+    public static Map<Long, String> getCharacterNames(Collection<Long> discordUids) {
+        Map<Long, String> characterNames = new HashMap<>();
+        List<Long> uncached = new ArrayList<>();
+        for (Long discordUid : discordUids) {
+            String cached = cache.getCharacterName(discordUid);
+            if (cached != null) {
+                characterNames.put(discordUid, cached);
+            } else {
+                uncached.add(discordUid);
+            }
+        }
+
+        for (List<Long> chunk : Database.chunks(uncached, BULK_CHUNK_SIZE)) {
+            long generation = cache.generation();
+            String query = "SELECT discord_uid, character_name FROM discord_users WHERE discord_uid IN (" + Database.placeholders(chunk.size()) + ")";
+            try (Connection connection = Database.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    preparedStatement.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        long discordUid = resultSet.getLong("discord_uid");
+                        String characterName = resultSet.getString("character_name");
+                        cache.put(discordUid, characterName, generation);
+                        characterNames.put(discordUid, characterName);
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("SQL Exception while fetching character names for {} Discord UIDs: ", chunk.size(), e);
+            }
+        }
+        return characterNames;
+    }
+
+    /**
+     * Returns the Discord UID linked to the character, or null if no account is linked to it.
+     */
+    public static Long findDiscordUid(String characterName) {
+        Long cached = cache.getDiscordUid(characterName);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation();
+        String query = "SELECT discord_uid, character_name FROM discord_users WHERE character_name = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, characterName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    long discordUid = resultSet.getLong("discord_uid");
+                    cache.put(discordUid, resultSet.getString("character_name"), generation);
+                    return discordUid;
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching Discord UID for character {}: ", characterName, e);
+        }
+        return null;
+    }
+
+    /**
+     * Drops the cached link of the Discord account. Call this whenever its discord_users row is written or deleted.
+     */
+    public static void invalidate(long discordUid) {
+        cache.invalidate(discordUid);
+    }
+
+    /**
+     * Drops the cached link of the character. Call this whenever the character is renamed or re-linked.
+     */
+    public static void invalidate(String characterName) {
+        cache.invalidate(characterName);
+    }
+
+    /**
+     * Loads every linked Discord account.
+     */
+    public static List<DiscordUser> getAll() {
+        List<DiscordUser> users = new ArrayList<>();
+        String query = "SELECT discord_uid, character_name, `rank`, replit_user_id FROM discord_users";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                users.add(new DiscordUser(
+                        resultSet.getLong("discord_uid"),
+                        resultSet.getString("character_name"),
+                        resultSet.getString("rank"),
+                        resultSet.getLong("replit_user_id")));
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while loading discord users: ", e);
+        }
+        return users;
+    }
+
+    /**
+     * Loads the temporary rank of every Discord account that has one.
+     *
+     * @throws SQLException if the query fails. Callers reconcile roles against the result, so an empty map in its
+     *                      place would take every temporary role away.
+     */
+    public static Map<Long, String> getTemporaryRanks() throws SQLException {
+        Map<Long, String> temporaryRanks = new HashMap<>();
+        String query = "SELECT discord_uid, `rank` FROM temporary_ranks";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                temporaryRanks.putIfAbsent(resultSet.getLong("discord_uid"), resultSet.getString("rank"));
+            }
+        }
+        return temporaryRanks;
+    }
+
+    /**
+     * Returns the temporary rank of the Discord account, or null if it has none.
+     */
+    public static String getTemporaryRank(long discordUid) {
+        String query = "SELECT `rank` FROM temporary_ranks WHERE discord_uid = ? LIMIT 1";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, discordUid);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString("rank");
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching the temporary rank for Discord UID {}: ", discordUid, e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.Utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries on the members table, which mirrors the clan roster from Wise Old Man plus the points balance.
+ */
+public final class MemberRepository {
+
+    private static final Logger logger = LogManager.getLogger(MemberRepository.class);
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    private MemberRepository() {
+    }
+
+    /**
+     * Returns the points balance of the member, or 0 if the member doesn't exist.
+     */
+    public static int getPoints(String username) {
+        String query = "SELECT points FROM members WHERE username = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, username);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt("points");
+                }
+                logger.warn("No points found for character name: {}", username);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching user points: ", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the points balance of many members at once. Unknown members are missing from the result.
+     */
+    public static Map<String, Integer> getPoints(Collection<String> usernames) {
+        Map<String, Integer> points = new HashMap<>();
+        for (List<String> chunk : Database.chunks(usernames, BULK_CHUNK_SIZE)) {
+            String query = "SELECT username, points FROM members WHERE username IN (" + Database.placeholders(chunk.size()) + ")";
+            try (Connection connection = Database.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    preparedStatement.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        points.put(resultSet.getString("username"), resultSet.getInt("points"));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("SQL Exception while fetching points for {} members: ", chunk.size(), e);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Returns the clan rank of the member by exact username, or null if the member doesn't exist.
+     */
+    public static String getRank(String username) {
+        String query = "SELECT `rank` FROM members WHERE username = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, username);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString("rank");
+                }
+                logger.warn("No rank found for character name: {}", username);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching user rank: ", e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the clan rank for a character name as typed by a user, matched on the canonical name
+     * (see {@link Utils#canonicalizeName(String)}). Returns null if no such member exists.
+     */
+    public static String findRankByCharacterName(String characterName) {
+        String query = "SELECT `rank` FROM members WHERE canonical_name = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, Utils.canonicalizeName(characterName));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString("rank");
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching rank for character: {}.", characterName, e);
+        }
+        return null;
+    }
+
+    /**
+     * Bulk variant of {@link #findRankByCharacterName(String)}. The result is keyed by the names that were passed in,
+     * characters that aren't in the clan are missing from it. Unlike the single lookup this throws when the database
+     * can't be reached, so callers can't take a failed lookup for characters having left the clan.
+     */
+    public static Map<String, String> findRanksByCharacterName(Collection<String> characterNames) throws SQLException {
+        Map<String, String> ranksByCanonicalName = new HashMap<>();
+        for (List<String> chunk : Database.chunks(characterNames, BULK_CHUNK_SIZE)) {
+            String query = "SELECT canonical_name, `rank` FROM members WHERE canonical_name IN (" + Database.placeholders(chunk.size()) + ")";
+            try (Connection connection = Database.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    preparedStatement.setString(i + 1, Utils.canonicalizeName(chunk.get(i)));
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ranksByCanonicalName.put(resultSet.getString("canonical_name"), resultSet.getString("rank"));
+                    }
+                }
+            }
+        }
+
+        Map<String, String> ranks = new HashMap<>();
+        for (String characterName : characterNames) {
+            String rank = ranksByCanonicalName.get(Utils.canonicalizeName(characterName));
+            if (rank != null) {
+                ranks.put(characterName, rank);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Checks whether a character name as typed by a user belongs to a clan member.
+     */
+    public static boolean isMemberInClan(String characterName) {
+        String query = "SELECT 1 FROM members WHERE canonical_name = ? LIMIT 1";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, Utils.canonicalizeName(characterName));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next();
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while checking clan membership for {}: ", characterName, e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds (or with a negative value removes) points to the member's balance.
+     */
+    public static void addPoints(String username, int pointsToAdd) {
+        String query = "UPDATE members SET points = points + ? WHERE username = ?";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setInt(1, pointsToAdd);
+            preparedStatement.setString(2, username);
+            int rowsUpdated = preparedStatement.executeUpdate();
+            if (rowsUpdated > 0) {
+                logger.info("Successfully updated points for character name: {}", username);
+            } else {
+                logger.warn("No rows updated for character name: {}", username);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while updating user points: ", e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves points between members. Every transfer is checked and applied in one transaction, so two gives that
+ * arrive at the same time can't both pass the balance or limit checks.
+ */
+public final class PointsLedger {
+
+    private static final Logger logger = LogManager.getLogger(PointsLedger.class);
+
+    // The giving budget of a rank (config.total_points) is spent over a rolling week
+    private static final int BUDGET_WINDOW_DAYS = 7;
+    private static final int BULK_CHUNK_SIZE = 500;
+    // Rollup buckets are whole hours, so a window can reach up to an hour further back than exactly N days
+    private static final String CURRENT_HOUR = "DATE_FORMAT(NOW(), '%Y-%m-%d %H:00:00')";
+    private static final String WINDOW_START = "DATE_FORMAT(NOW() - INTERVAL ? DAY, '%Y-%m-%d %H:00:00')";
+
+    private PointsLedger() {
+    }
+
+    /**
+     * How much a giver may hand out through a command.
+     */
+    public static final class Limits {
+
+        private final int windowDays;
+        private final int perRecipient;
+        private final boolean enforceBudget;
+
+        /**
+         * @param windowDays    the window the per-recipient limit applies to.
+         * @param perRecipient  the most points one giver may give one recipient inside the window.
+         * @param enforceBudget whether gives count against the giver's weekly rank budget.
+         */
+        public Limits(int windowDays, int perRecipient, boolean enforceBudget) {
+            this.windowDays = windowDays;
+            this.perRecipient = perRecipient;
+            this.enforceBudget = enforceBudget;
+        }
+    }
+
+    /**
+     * Gives (or with a negative value takes) points from the giver to the recipient. Within one transaction this
+     * locks both member rows, checks the recipient's balance, the per-recipient limit and the giver's budget,
+     * updates the balance, writes the points_transactions row and adds the points to the hourly giving rollups, which
+     * are what the budget is checked against.
+     */
+    public static PointsTransfer transfer(String giver, String recipient, int points, String reason, Limits limits) {
+        try (Connection connection = Database.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                PointsTransfer transfer = transfer(connection, giver, recipient, points, reason, limits);
+                if (transfer.isApplied()) {
+                    connection.commit();
+                    logger.info("Transferred {} points from {} to {}.", points, giver, recipient);
+                } else {
+                    connection.rollback();
+                    logger.info("Refused transfer of {} points from {} to {}: {}", points, giver, recipient, transfer.getStatus());
+                }
+                return transfer;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while transferring {} points from {} to {}: ", points, giver, recipient, e);
+            return PointsTransfer.failed(PointsTransfer.Status.FAILED);
+        }
+    }
+
+    /**
+     * Returns how many points the member gave anyone in the last week, which is what counts against the rank budget.
+     */
+    public static int getGivenThisWeek(String giver) {
+        String query = "SELECT COALESCE(SUM(points), 0) FROM points_budget_hourly WHERE giver = ? AND hour_start >= " + WINDOW_START;
+        try (Connection connection = Database.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, giver);
+            preparedStatement.setInt(2, BUDGET_WINDOW_DAYS);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching points given by {}: ", giver, e);
+        }
+        return 0;
+    }
+
+    /**
+     * Gives every recipient the same amount of points in one transaction, with a ledger row and rollup update per
+     * recipient. No limits apply, this is for owners handing out points to a whole role. Recipients that aren't
+     * members are skipped.
+     *
+     * @return the new balance of every recipient that received points, empty if the transaction failed.
+     */
+    public static Map<String, Integer> distribute(String giver, Collection<String> recipients, int pointsEach, String reason) {
+        Map<String, Integer> newBalances = new HashMap<>();
+        try (Connection connection = Database.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Map<String, Integer> previousBalances = new HashMap<>();
+                for (List<String> chunk : Database.chunks(recipients, BULK_CHUNK_SIZE)) {
+                    String lockQuery = "SELECT username, points FROM members WHERE username IN (" + Database.placeholders(chunk.size()) + ") FOR UPDATE";
+                    try (PreparedStatement stmt = connection.prepareStatement(lockQuery)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setString(i + 1, chunk.get(i));
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                previousBalances.put(rs.getString("username"), rs.getInt("points"));
+                            }
+                        }
+                    }
+                }
+
+                String ledgerInsert = "INSERT INTO points_transactions (character_name, points_change, reason, timestamp, related_user, previous_points, new_points) "
+                        + "VALUES (?, ?, ?, NOW(), ?, ?, ?)";
+                try (PreparedStatement update = connection.prepareStatement("UPDATE members SET points = ? WHERE username = ?");
+                     PreparedStatement ledger = connection.prepareStatement(ledgerInsert)) {
+                    for (Map.Entry<String, Integer> entry : previousBalances.entrySet()) {
+                        int newPoints = entry.getValue() + pointsEach;
+                        update.setInt(1, newPoints);
+                        update.setString(2, entry.getKey());
+                        update.addBatch();
+
+                        ledger.setString(1, entry.getKey());
+                        ledger.setInt(2, pointsEach);
+                        ledger.setString(3, reason);
+                        ledger.setString(4, giver);
+                        ledger.setInt(5, entry.getValue());
+                        ledger.setInt(6, newPoints);
+                        ledger.addBatch();
+
+                        newBalances.put(entry.getKey(), newPoints);
+                    }
+                    update.executeBatch();
+                    ledger.executeBatch();
+                }
+
+                Map<String, Integer> pointsByRecipient = new HashMap<>();
+                newBalances.keySet().forEach(recipient -> pointsByRecipient.put(recipient, pointsEach));
+                addToRollups(connection, giver, pointsByRecipient);
+
+                connection.commit();
+                logger.info("Distributed {} points each from {} to {} members.", pointsEach, giver, newBalances.size());
+                return newBalances;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL Exception while distributing points from {} to {} members: ", giver, recipients.size(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static PointsTransfer transfer(Connection connection, String giver, String recipient, int points,
+                                           String reason, Limits limits) throws SQLException {
+        Integer previousPoints = null;
+        String giverRank = null;
+        String lockQuery = "SELECT username, points, `rank` FROM members WHERE username IN (?, ?) FOR UPDATE";
+        try (PreparedStatement stmt = connection.prepareStatement(lockQuery)) {
+            stmt.setString(1, giver);
+            stmt.setString(2, recipient);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String username = rs.getString("username");
+                    if (username.equalsIgnoreCase(recipient)) {
+                        previousPoints = rs.getInt("points");
+                    }
+                    if (username.equalsIgnoreCase(giver)) {
+                        giverRank = rs.getString("rank");
+                    }
+                }
+            }
+        }
+        if (previousPoints == null) {
+            return PointsTransfer.failed(PointsTransfer.Status.RECIPIENT_NOT_FOUND);
+        }
+        if (previousPoints + points < 0) {
+            return new PointsTransfer(PointsTransfer.Status.INSUFFICIENT_BALANCE, previousPoints, previousPoints, 0, 0);
+        }
+
+        int[] given = givenInWindows(connection, giver, recipient, limits.windowDays);
+        int givenToRecipient = given[0];
+        if (givenToRecipient + points > limits.perRecipient) {
+            return new PointsTransfer(PointsTransfer.Status.RECIPIENT_LIMIT_REACHED, previousPoints, previousPoints, givenToRecipient, 0);
+        }
+        int budgetRemaining = 0;
+        if (limits.enforceBudget) {
+            budgetRemaining = RankLadder.get().getTotalPoints(giverRank) - given[1];
+            if (points > budgetRemaining) {
+                return new PointsTransfer(PointsTransfer.Status.BUDGET_EXCEEDED, previousPoints, previousPoints, givenToRecipient, budgetRemaining);
+            }
+        }
+
+        int newPoints = previousPoints + points;
+        try (PreparedStatement stmt = connection.prepareStatement("UPDATE members SET points = ? WHERE username = ?")) {
+            stmt.setInt(1, newPoints);
+            stmt.setString(2, recipient);
+            stmt.executeUpdate();
+        }
+
+        String ledgerInsert = "INSERT INTO points_transactions (character_name, points_change, reason, timestamp, related_user, previous_points, new_points) "
+                + "VALUES (?, ?, ?, NOW(), ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(ledgerInsert)) {
+            stmt.setString(1, recipient);
+            stmt.setInt(2, points);
+            stmt.setString(3, reason);
+            stmt.setString(4, giver);
+            stmt.setInt(5, previousPoints);
+            stmt.setInt(6, newPoints);
+            stmt.executeUpdate();
+        }
+
+        addToRollups(connection, giver, Collections.singletonMap(recipient, points));
+        return new PointsTransfer(PointsTransfer.Status.APPLIED, previousPoints, newPoints, givenToRecipient, budgetRemaining);
+    }
+
+    /**
+     * Returns what the giver gave the recipient in the last windowDays days, and what the giver gave anyone in the
+     * budget window. Both come from the hourly rollups, so the cost doesn't grow with the ledger.
+     */
+    private static int[] givenInWindows(Connection connection, String giver, String recipient, int windowDays) throws SQLException {
+        String query = "SELECT "
+                + "(SELECT COALESCE(SUM(points), 0) FROM points_given_hourly WHERE giver = ? AND recipient = ? AND hour_start >= " + WINDOW_START + ") AS to_recipient, "
+                + "(SELECT COALESCE(SUM(points), 0) FROM points_budget_hourly WHERE giver = ? AND hour_start >= " + WINDOW_START + ") AS to_anyone";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, giver);
+            stmt.setString(2, recipient);
+            stmt.setInt(3, windowDays);
+            stmt.setString(4, giver);
+            stmt.setInt(5, BUDGET_WINDOW_DAYS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new int[]{rs.getInt("to_recipient"), rs.getInt("to_anyone")};
+            }
+        }
+    }
+
+    /**
+     * Adds ledger rows' points to the hourly rollups. Has to run in the transaction that writes the rows.
+     *
+     * @param pointsByRecipient points given per recipient.
+     */
+    private static void addToRollups(Connection connection, String giver, Map<String, Integer> pointsByRecipient) throws SQLException {
+        String pairUpsert = "INSERT INTO points_given_hourly (giver, recipient, hour_start, points) VALUES (?, ?, " + CURRENT_HOUR + ", ?) "
+                + "ON DUPLICATE KEY UPDATE points = points + VALUES(points)";
+        int total = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(pairUpsert)) {
+            for (Map.Entry<String, Integer> entry : pointsByRecipient.entrySet()) {
+                stmt.setString(1, giver);
+                stmt.setString(2, entry.getKey());
+                stmt.setInt(3, entry.getValue());
+                stmt.addBatch();
+                total += entry.getValue();
+            }
+            stmt.executeBatch();
+        }
+        String budgetUpsert = "INSERT INTO points_budget_hourly (giver, hour_start, points) VALUES (?, " + CURRENT_HOUR + ", ?) "
+                + "ON DUPLICATE KEY UPDATE points = points + VALUES(points)";
+        try (PreparedStatement stmt = connection.prepareStatement(budgetUpsert)) {
+            stmt.setString(1, giver);
+            stmt.setInt(2, total);
+            stmt.executeUpdate();
+        }
+    }
+}
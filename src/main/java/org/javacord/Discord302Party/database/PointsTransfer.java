@@ -0,0 +1,70 @@
+package org.javacord.Discord302Party.database;
+
+/**
+ * Outcome of {@link PointsLedger#transfer}. Balances are as of the commit, so callers can reply without re-reading.
+ */
+public class PointsTransfer {
+
+    public enum Status {
+        APPLIED,
+        RECIPIENT_NOT_FOUND,
+        INSUFFICIENT_BALANCE,
+        RECIPIENT_LIMIT_REACHED,
+        BUDGET_EXCEEDED,
+        FAILED
+    }
+
+    private final Status status;
+    private final int previousPoints;
+    private final int newPoints;
+    private final int givenToRecipient;
+    private final int budgetRemaining;
+
+    PointsTransfer(Status status, int previousPoints, int newPoints, int givenToRecipient, int budgetRemaining) {
+        this.status = status;
+        this.previousPoints = previousPoints;
+        this.newPoints = newPoints;
+        this.givenToRecipient = givenToRecipient;
+        this.budgetRemaining = budgetRemaining;
+    }
+
+    static PointsTransfer failed(Status status) {
+        return new PointsTransfer(status, 0, 0, 0, 0);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    /**
+     * The recipient's balance before the transfer.
+     */
+    public int getPreviousPoints() {
+        return previousPoints;
+    }
+
+    /**
+     * The recipient's balance after the transfer, or the unchanged balance if it was refused.
+     */
+    public int getNewPoints() {
+        return newPoints;
+    }
+
+    /**
+     * Points the giver had already given the recipient inside the limit window, not counting this transfer.
+     */
+    public int getGivenToRecipient() {
+        return givenToRecipient;
+    }
+
+    /**
+     * Points the giver can still give this week, not counting this transfer. Only set when the budget is enforced.
+     */
+    public int getBudgetRemaining() {
+        return budgetRemaining;
+    }
+}
@@ -0,0 +1,363 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * An immutable snapshot of the rank config table and rank_requirements, so looking up a rank, the rank above it, its
+ * points budget or its requirements doesn't cost a query. The snapshot is replaced as a whole by {@link #reload()},
+ * which the commands that edit the requirements call, and which the WOM and rank updaters call on every run to pick up
+ * edits made to config by hand. Listeners are told when a reload changed anything.
+ * <p>
+ * Ranks are looked up case-insensitively, like the MySQL collation does. Lower rank_order is the higher rank.
+ */
+public final class RankLadder {
+
+    private static final Logger logger = LogManager.getLogger(RankLadder.class);
+
+    // Handed out by WOM, not configured in the database
+    private static final Set<String> TEMPORARY_RANKS = Set.of("monarch", "competitor", "attacker", "enforcer",
+            "defender", "ranger", "priest", "magician", "runecrafter", "medic", "athlete", "herbologist", "thief",
+            "crafter", "fletcher", "miner", "smith", "fisher", "cook", "firemaker", "lumberjack", "slayer", "farmer",
+            "constructor", "hunter", "skiller");
+
+    private static final RankLadder EMPTY = new RankLadder(List.of(), List.of());
+    // How long get() hands out the empty snapshot after the first load failed, before it tries again
+    private static final long LOAD_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static volatile RankLadder current;
+    private static volatile boolean loadFailed;
+    private static volatile long nextLoadAttempt;
+    private static final List<Consumer<RankLadder>> listeners = new CopyOnWriteArrayList<>();
+    private static final AtomicLong reloads = new AtomicLong();
+    private static final AtomicLong changes = new AtomicLong();
+
+    static {
+        MetricsReporter.register("rank-ladder", RankLadder::describe);
+    }
+
+    /**
+     * A row of config.
+     */
+    private static final class Rank {
+        final String name;
+        final int order;
+        final int totalPoints;
+
+        Rank(String name, int order, int totalPoints) {
+            this.name = name;
+            this.order = order;
+            this.totalPoints = totalPoints;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Rank)) {
+                return false;
+            }
+            Rank other = (Rank) o;
+            return name.equals(other.name) && order == other.order && totalPoints == other.totalPoints;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, order, totalPoints);
+        }
+    }
+
+    /**
+     * A row of rank_requirements.
+     */
+    public static final class Requirement {
+        private final int id;
+        private final String rank;
+        private final String type;
+        private final String requiredValue;
+
+        Requirement(int id, String rank, String type, String requiredValue) {
+            this.id = id;
+            this.rank = rank;
+            this.type = type;
+            this.requiredValue = requiredValue;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getRank() {
+            return rank;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getRequiredValue() {
+            return requiredValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Requirement)) {
+                return false;
+            }
+            Requirement other = (Requirement) o;
+            return id == other.id && Objects.equals(rank, other.rank) && Objects.equals(type, other.type)
+                    && Objects.equals(requiredValue, other.requiredValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, rank, type, requiredValue);
+        }
+    }
+
+    private final List<Rank> rows;
+    private final List<Requirement> requirements;
+    private final List<String> ranks;
+    private final Map<String, Rank> byName = new HashMap<>();
+    private final Map<String, String> nextRanks = new HashMap<>();
+    private final Map<String, String> previousRanks = new HashMap<>();
+    private final Map<String, List<Requirement>> requirementsByRank = new HashMap<>();
+
+    // rows are in rank order, requirements in id order
+    private RankLadder(List<Rank> rows, List<Requirement> requirements) {
+        this.rows = rows;
+        this.requirements = requirements;
+
+        List<String> names = new ArrayList<>();
+        TreeMap<Integer, String> byOrder = new TreeMap<>();
+        for (Rank row : rows) {
+            names.add(row.name);
+            byName.putIfAbsent(key(row.name), row);
+            byOrder.putIfAbsent(row.order, row.name);
+        }
+        this.ranks = Collections.unmodifiableList(names);
+
+        for (Rank row : byName.values()) {
+            // Like the old per-user query, the top rank maps to the rank with rank_order 0, if there is one
+            Map.Entry<Integer, String> next = byOrder.lowerEntry(row.order);
+            String nextRank = next != null && next.getKey() > 0 ? next.getValue() : byOrder.get(0);
+            if (nextRank != null) {
+                nextRanks.put(key(row.name), nextRank);
+            }
+            Map.Entry<Integer, String> previous = byOrder.higherEntry(row.order);
+            if (previous != null) {
+                previousRanks.put(key(row.name), previous.getValue());
+            }
+        }
+
+        for (Requirement requirement : requirements) {
+            requirementsByRank.computeIfAbsent(key(requirement.rank), rank -> new ArrayList<>()).add(requirement);
+        }
+        requirementsByRank.replaceAll((rank, list) -> Collections.unmodifiableList(list));
+    }
+
+    /**
+     * Returns the current snapshot, loading it first if that hasn't happened yet. If the database can't be reached the
+     * snapshot is empty, and loading is tried again at most every 30 seconds, so callers don't all wait on the
+     * database while it is down.
+     */
+    public static RankLadder get() {
+        RankLadder ladder = current;
+        if (ladder != null) {
+            return ladder;
+        }
+        return backingOff() ? EMPTY : loadFirst();
+    }
+
+    private static synchronized RankLadder loadFirst() {
+        // Callers that waited here while the load failed don't try again straight away
+        if (current != null) {
+            return current;
+        }
+        return backingOff() ? EMPTY : reload();
+    }
+
+    private static boolean backingOff() {
+        return loadFailed && System.nanoTime() - nextLoadAttempt < 0;
+    }
+
+    /**
+     * Reloads the snapshot from the database and tells the listeners if it changed. Keeps the previous snapshot if the
+     * database can't be reached.
+     */
+    public static synchronized RankLadder reload() {
+        RankLadder loaded;
+        try (Connection connection = Database.getConnection()) {
+            loaded = load(connection);
+        } catch (SQLException e) {
+            logger.error("SQL Exception while loading the rank ladder: ", e);
+            if (current == null) {
+                nextLoadAttempt = System.nanoTime() + LOAD_RETRY_NANOS;
+                loadFailed = true;
+            }
+            return current != null ? current : EMPTY;
+        }
+        reloads.incrementAndGet();
+        loadFailed = false;
+
+        RankLadder previous = current;
+        if (previous != null && previous.rows.equals(loaded.rows) && previous.requirements.equals(loaded.requirements)) {
+            return previous;
+        }
+        current = loaded;
+        if (previous != null) {
+            changes.incrementAndGet();
+            logger.info("Rank ladder changed: {} ranks, {} requirements.", loaded.rows.size(), loaded.requirements.size());
+        }
+        for (Consumer<RankLadder> listener : listeners) {
+            try {
+                listener.accept(loaded);
+            } catch (RuntimeException e) {
+                logger.error("Error notifying a rank ladder listener: ", e);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Registers a listener that is called with the new snapshot whenever a reload changes it.
+     */
+    public static void addListener(Consumer<RankLadder> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns whether the rank is one of the temporary ranks WOM hands out, which aren't part of the ladder.
+     */
+    public static boolean isTemporaryRank(String rank) {
+        return rank != null && TEMPORARY_RANKS.contains(key(rank));
+    }
+
+    /**
+     * Returns the configured ranks, highest first.
+     */
+    public List<String> getRanks() {
+        return ranks;
+    }
+
+    public boolean contains(String rank) {
+        return rank != null && byName.containsKey(key(rank));
+    }
+
+    /**
+     * Returns the rank as it is spelled in config, or null if it isn't configured.
+     */
+    public String getName(String rank) {
+        Rank row = rank == null ? null : byName.get(key(rank));
+        return row == null ? null : row.name;
+    }
+
+    /**
+     * Returns the rank_order of the rank, or null if it isn't configured.
+     */
+    public Integer getOrder(String rank) {
+        Rank row = rank == null ? null : byName.get(key(rank));
+        return row == null ? null : row.order;
+    }
+
+    /**
+     * Returns the rank above the given one, or null for the top rank and ranks that aren't configured.
+     */
+    public String getNextRank(String rank) {
+        return rank == null ? null : nextRanks.get(key(rank));
+    }
+
+    /**
+     * Returns the rank below the given one, or null for the bottom rank and ranks that aren't configured.
+     */
+    public String getPreviousRank(String rank) {
+        return rank == null ? null : previousRanks.get(key(rank));
+    }
+
+    /**
+     * Returns how many points a member of the rank may give per week, or 0 if the rank isn't configured.
+     */
+    public int getTotalPoints(String rank) {
+        Rank row = rank == null ? null : byName.get(key(rank));
+        return row == null ? 0 : row.totalPoints;
+    }
+
+    /**
+     * Returns the total points of every configured rank, in rank order.
+     */
+    public Map<String, Integer> getTotalPoints() {
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (Rank row : rows) {
+            totals.putIfAbsent(row.name, row.totalPoints);
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the requirements of the rank, in the order they were added.
+     */
+    public List<Requirement> getRequirements(String rank) {
+        return rank == null ? List.of() : requirementsByRank.getOrDefault(key(rank), List.of());
+    }
+
+    /**
+     * Returns every requirement, in the order they were added.
+     */
+    public List<Requirement> getRequirements() {
+        return requirements;
+    }
+
+    public Set<String> getTemporaryRanks() {
+        return TEMPORARY_RANKS;
+    }
+
+    private static RankLadder load(Connection connection) throws SQLException {
+        List<Rank> rows = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT `rank`, rank_order, total_points FROM config ORDER BY rank_order, `rank`");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rows.add(new Rank(rs.getString("rank"), rs.getInt("rank_order"), rs.getInt("total_points")));
+            }
+        }
+
+        List<Requirement> requirements = new ArrayList<>();
+        String query = "SELECT id, `rank`, requirement_type, required_value FROM rank_requirements ORDER BY id";
+        try (PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                requirements.add(new Requirement(rs.getInt("id"), rs.getString("rank"),
+                        rs.getString("requirement_type"), rs.getString("required_value")));
+            }
+        }
+        return new RankLadder(Collections.unmodifiableList(rows), Collections.unmodifiableList(requirements));
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String describe() {
+        RankLadder ladder = current;
+        return String.format("ranks=%d requirements=%d reloads=%d changes=%d",
+                ladder == null ? 0 : ladder.rows.size(), ladder == null ? 0 : ladder.requirements.size(),
+                reloads.get(), changes.get());
+    }
+}
@@ -0,0 +1,251 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.Utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the database schema up to date with what the bot expects. Every step checks information_schema first,
+ * so running this on every startup is safe.
+ */
+public final class SchemaMigrations {
+
+    private static final Logger logger = LogManager.getLogger(SchemaMigrations.class);
+
+    // The longest giving window is a week, keep a day extra
+    private static final int ROLLUP_RETENTION_DAYS = 8;
+
+    private SchemaMigrations() {
+    }
+
+    @FunctionalInterface
+    private interface Migration {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Applies every migration. They don't depend on each other, so one failing doesn't stop the rest; the ones that
+     * failed are logged by name and tried again on the next startup.
+     */
+    public static void apply() {
+        Map<String, Migration> migrations = new LinkedHashMap<>();
+        migrations.put("canonical names", SchemaMigrations::addCanonicalNameColumns);
+        migrations.put("giving rollups", SchemaMigrations::addGivingRollups);
+        migrations.put("membership snapshot", SchemaMigrations::addMembershipSnapshot);
+        migrations.put("activity keys", SchemaMigrations::addActivityKeys);
+        migrations.put("validation key", SchemaMigrations::addValidationKey);
+
+        List<String> failed = new ArrayList<>();
+        try (Connection connection = Database.getConnection()) {
+            for (Map.Entry<String, Migration> migration : migrations.entrySet()) {
+                try {
+                    migration.getValue().apply(connection);
+                } catch (SQLException e) {
+                    failed.add(migration.getKey());
+                    logger.error("SQL Exception while applying the {} migration: ", migration.getKey(), e);
+                }
+            }
+        } catch (SQLException e) {
+            failed.addAll(migrations.keySet());
+            logger.error("SQL Exception while connecting for schema migrations: ", e);
+        }
+        if (!failed.isEmpty()) {
+            logger.error("Schema migrations not applied: {}", failed);
+        }
+    }
+
+    /**
+     * Returns the SQL for the canonical form of a name column, the same as {@link Utils#canonicalizeName(String)} for
+     * the separators that occur in character names: spaces, underscores, hyphens and no-break spaces.
+     */
+    public static String canonicalNameExpression(String nameColumn) {
+        return "TRIM(REGEXP_REPLACE(LOWER(" + nameColumn + "), '[ _\u00A0-]+', ' '))";
+    }
+
+    /**
+     * Adds an indexed canonical_name column to members and discord_users, so name lookups are exact index matches
+     * instead of LOWER(REPLACE(...)) scans. The column is generated by the database, so rows written by other tools
+     * are covered as well. A plain column added by an earlier version is turned into a generated one.
+     */
+    private static void addCanonicalNameColumns(Connection connection) throws SQLException {
+        addCanonicalNameColumn(connection, "members", "username", "idx_members_canonical_name");
+        addCanonicalNameColumn(connection, "discord_users", "character_name", "idx_discord_users_canonical_name");
+    }
+
+    private static void addCanonicalNameColumn(Connection connection, String table, String nameColumn, String index) throws SQLException {
+        String definition = "VARCHAR(64) GENERATED ALWAYS AS (" + canonicalNameExpression(nameColumn) + ") STORED";
+        if (!columnExists(connection, table, "canonical_name")) {
+            addColumn(connection, table, "canonical_name", definition);
+        } else if (!isGenerated(connection, table, "canonical_name")) {
+            execute(connection, "ALTER TABLE " + table + " MODIFY COLUMN canonical_name " + definition);
+            logger.info("Made {}.canonical_name a generated column.", table);
+        }
+        addIndex(connection, table, index, "canonical_name");
+    }
+
+    /**
+     * Creates the hourly rollups of points_transactions that PointsLedger checks the giving limits against, and seeds
+     * them from the ledger when they are first created. Buckets that have left every window are dropped on startup.
+     */
+    private static void addGivingRollups(Connection connection) throws SQLException {
+        if (!tableExists(connection, "points_given_hourly")) {
+            execute(connection, "CREATE TABLE points_given_hourly ("
+                    + "giver VARCHAR(64) NOT NULL, "
+                    + "recipient VARCHAR(64) NOT NULL, "
+                    + "hour_start DATETIME NOT NULL, "
+                    + "points INT NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (giver, recipient, hour_start))");
+            int seeded = executeUpdate(connection, "INSERT INTO points_given_hourly (giver, recipient, hour_start, points) "
+                    + "SELECT related_user, character_name, DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00'), SUM(points_change) "
+                    + "FROM points_transactions WHERE related_user IS NOT NULL AND timestamp >= NOW() - INTERVAL " + ROLLUP_RETENTION_DAYS + " DAY "
+                    + "GROUP BY related_user, character_name, DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00')");
+            logger.info("Created points_given_hourly, seeded {} buckets.", seeded);
+        }
+        if (!tableExists(connection, "points_budget_hourly")) {
+            execute(connection, "CREATE TABLE points_budget_hourly ("
+                    + "giver VARCHAR(64) NOT NULL, "
+                    + "hour_start DATETIME NOT NULL, "
+                    + "points INT NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (giver, hour_start))");
+            int seeded = executeUpdate(connection, "INSERT INTO points_budget_hourly (giver, hour_start, points) "
+                    + "SELECT related_user, DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00'), SUM(points_change) "
+                    + "FROM points_transactions WHERE related_user IS NOT NULL AND timestamp >= NOW() - INTERVAL " + ROLLUP_RETENTION_DAYS + " DAY "
+                    + "GROUP BY related_user, DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00')");
+            logger.info("Created points_budget_hourly, seeded {} buckets.", seeded);
+        }
+
+        int pruned = executeUpdate(connection, "DELETE FROM points_given_hourly WHERE hour_start < NOW() - INTERVAL " + ROLLUP_RETENTION_DAYS + " DAY")
+                + executeUpdate(connection, "DELETE FROM points_budget_hourly WHERE hour_start < NOW() - INTERVAL " + ROLLUP_RETENTION_DAYS + " DAY");
+        if (pruned > 0) {
+            logger.info("Pruned {} expired giving rollup buckets.", pruned);
+        }
+    }
+
+    /**
+     * Creates the table WOMGroupUpdater keeps the group membership of its last run in, so it only has to sync what changed.
+     */
+    private static void addMembershipSnapshot(Connection connection) throws SQLException {
+        if (tableExists(connection, "wom_membership_snapshot")) {
+            return;
+        }
+        execute(connection, "CREATE TABLE wom_membership_snapshot ("
+                + "WOM_id INT NOT NULL PRIMARY KEY, "
+                + "username VARCHAR(64) NOT NULL, "
+                + "role VARCHAR(64) NULL, "
+                + "updated_at DATETIME NULL)");
+        logger.info("Created wom_membership_snapshot.");
+    }
+
+    /**
+     * Creates the table WOMGroupUpdater records every activity event it has applied in, so an event that is fetched
+     * twice is only applied once. Keys of events well behind the activity watermark can never be fetched again and are
+     * dropped on startup.
+     */
+    private static void addActivityKeys(Connection connection) throws SQLException {
+        if (!tableExists(connection, "wom_activity_processed")) {
+            execute(connection, "CREATE TABLE wom_activity_processed ("
+                    + "event_key VARCHAR(191) NOT NULL PRIMARY KEY, "
+                    + "created_at DATETIME NOT NULL, "
+                    + "processed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "INDEX idx_wom_activity_processed_created (created_at))");
+            logger.info("Created wom_activity_processed.");
+        }
+
+        if (tableExists(connection, "activity_log_tracker")) {
+            int pruned = executeUpdate(connection, "DELETE FROM wom_activity_processed WHERE created_at < "
+                    + "(SELECT MAX(last_processed_at) FROM activity_log_tracker) - INTERVAL 1 DAY");
+            if (pruned > 0) {
+                logger.info("Pruned {} processed activity keys behind the watermark.", pruned);
+            }
+        }
+    }
+
+    /**
+     * Makes validation_log unique on (character_name, rank, requirement_id), so a requirement is logged once per
+     * member. Earlier versions logged every requirement that was still met on every run; those duplicates are removed
+     * first, keeping the oldest row.
+     */
+    private static void addValidationKey(Connection connection) throws SQLException {
+        if (!tableExists(connection, "validation_log") || indexExists(connection, "validation_log", "uq_validation_log_requirement")) {
+            return;
+        }
+        int removed = executeUpdate(connection, "DELETE newer FROM validation_log newer "
+                + "JOIN validation_log older ON older.character_name = newer.character_name "
+                + "AND older.`rank` = newer.`rank` AND older.requirement_id = newer.requirement_id AND older.id < newer.id");
+        execute(connection, "CREATE UNIQUE INDEX uq_validation_log_requirement ON validation_log (character_name, `rank`, requirement_id)");
+        logger.info("Added unique key to validation_log, removed {} duplicate validations.", removed);
+    }
+
+    // ----------------------------------
+    // information_schema helpers
+    // ----------------------------------
+    private static void addColumn(Connection connection, String table, String column, String definition) throws SQLException {
+        if (columnExists(connection, table, column)) {
+            return;
+        }
+        execute(connection, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        logger.info("Added column {}.{}", table, column);
+    }
+
+    private static void addIndex(Connection connection, String table, String index, String columns) throws SQLException {
+        if (indexExists(connection, table, index)) {
+            return;
+        }
+        execute(connection, "CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        logger.info("Added index {} on {}", index, table);
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        return count(connection, query, table) > 0;
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        return count(connection, query, table, column) > 0;
+    }
+
+    private static boolean isGenerated(Connection connection, String table, String column) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+                + "AND COLUMN_NAME = ? AND COALESCE(GENERATION_EXPRESSION, '') <> ''";
+        return count(connection, query, table, column) > 0;
+    }
+
+    private static boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?";
+        return count(connection, query, table, index) > 0;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int executeUpdate(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            return stmt.executeUpdate(sql);
+        }
+    }
+
+    private static int count(Connection connection, String query, String... params) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
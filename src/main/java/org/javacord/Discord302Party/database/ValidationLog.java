@@ -0,0 +1,142 @@
+package org.javacord.Discord302Party.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The requirements each member has been validated for. A member is validated for a requirement once: validation_log
+ * is unique on (character_name, rank, requirement_id) and the pairs already in it are kept in memory, so checking a
+ * member who still meets a requirement costs no query and no write.
+ */
+public final class ValidationLog {
+
+    private static final Logger logger = LogManager.getLogger(ValidationLog.class);
+
+    // requirement_id -> lower case character names, MySQL compares the names case-insensitively
+    private static final Map<Integer, Set<String>> validated = new ConcurrentHashMap<>();
+    private static volatile boolean loaded;
+
+    private static final LongAdder written = new LongAdder();
+    private static final LongAdder skipped = new LongAdder();
+
+    static {
+        MetricsReporter.register("validation-log", ValidationLog::describe);
+    }
+
+    private ValidationLog() {
+    }
+
+    /**
+     * A requirement a member was found to meet.
+     */
+    public static final class Validation {
+        private final String characterName;
+        private final String rank;
+        private final int requirementId;
+
+        public Validation(String characterName, String rank, int requirementId) {
+            this.characterName = characterName;
+            this.rank = rank;
+            this.requirementId = requirementId;
+        }
+    }
+
+    /**
+     * Loads the validated pairs from validation_log.
+     */
+    public static synchronized void load() {
+        String query = "SELECT DISTINCT character_name, requirement_id FROM validation_log WHERE requirement_id IS NOT NULL";
+        try (Connection connection = Database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            validated.clear();
+            int count = 0;
+            while (rs.next()) {
+                if (add(rs.getString("character_name"), rs.getInt("requirement_id"))) {
+                    count++;
+                }
+            }
+            loaded = true;
+            logger.info("Loaded {} validated requirements.", count);
+        } catch (SQLException e) {
+            logger.error("SQL Exception while loading the validation log: ", e);
+        }
+    }
+
+    /**
+     * Loads the validated pairs if that hasn't happened yet, e.g. because the database was down on startup.
+     */
+    public static void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    /**
+     * Returns whether the member has been validated for the requirement, by the bot or by staff.
+     */
+    public static boolean isValidated(String characterName, int requirementId) {
+        Set<String> names = validated.get(requirementId);
+        return names != null && characterName != null && names.contains(key(characterName));
+    }
+
+    /**
+     * Logs the validations the bot found, validated_by SYSTEM. Validations that are already logged are skipped, here
+     * or by the unique key if another pass logged them first.
+     *
+     * @return the number of validations that were new.
+     */
+    public static int recordSystemValidations(Connection connection, List<Validation> validations) throws SQLException {
+        String insertSql = "INSERT IGNORE INTO validation_log (character_name, `rank`, requirement_id, validated_by, validation_date) " +
+                "VALUES (?, ?, ?, 'SYSTEM', NOW())";
+        int count = 0;
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            for (Validation validation : validations) {
+                if (isValidated(validation.characterName, validation.requirementId)) {
+                    skipped.increment();
+                    continue;
+                }
+                insert.setString(1, validation.characterName);
+                insert.setString(2, validation.rank);
+                insert.setInt(3, validation.requirementId);
+                insert.addBatch();
+                count++;
+            }
+            if (count > 0) {
+                insert.executeBatch();
+            }
+        }
+        // Only remembered once the rows are in, so a failed batch is retried by the next pass
+        for (Validation validation : validations) {
+            add(validation.characterName, validation.requirementId);
+        }
+        written.add(count);
+        return count;
+    }
+
+    private static boolean add(String characterName, int requirementId) {
+        return characterName != null
+                && validated.computeIfAbsent(requirementId, id -> ConcurrentHashMap.newKeySet()).add(key(characterName));
+    }
+
+    private static String key(String characterName) {
+        return characterName.toLowerCase(Locale.ROOT);
+    }
+
+    private static String describe() {
+        long pairs = validated.values().stream().mapToLong(Set::size).sum();
+        return String.format("validated=%d written=%d skipped=%d", pairs, written.sum(), skipped.sum());
+    }
+}
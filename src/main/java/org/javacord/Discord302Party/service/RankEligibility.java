@@ -0,0 +1,273 @@
+package org.javacord.Discord302Party.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.utils.BotExecutors;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The members whose points put them at a different rank than the one they hold, kept up to date in memory so
+ * /check_rank_up is a read instead of a query over every member and requirement.
+ * <p>
+ * A member's correct rank is the rank with the highest numeric requirement (other than "Other") their points reach.
+ * Members are recomputed when {@link RankEvaluationQueue} re-checks them, and everything is rebuilt by the periodic
+ * full rank pass and, in the background, as soon as {@link RankLadder} reports a change to the ranks or requirements.
+ */
+public final class RankEligibility {
+
+    private static final Logger logger = LogManager.getLogger(RankEligibility.class);
+    private static final Pattern NUMERIC = Pattern.compile("[0-9]+");
+    // Staff ranks aren't earned with points
+    private static final Set<String> EXCLUDED_RANKS = Set.of("owner", "deputy_owner", "legacy", "seer", "moderator");
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * A member who should be ranked up or down.
+     */
+    public static final class Candidate {
+        private final String username;
+        private final String currentRank;
+        private final String correctRank;
+        private final int currentRankOrder;
+        private final int correctRankOrder;
+        private final int points;
+        private final long requiredPoints;
+
+        Candidate(String username, String currentRank, String correctRank, int currentRankOrder, int correctRankOrder,
+                  int points, long requiredPoints) {
+            this.username = username;
+            this.currentRank = currentRank;
+            this.correctRank = correctRank;
+            this.currentRankOrder = currentRankOrder;
+            this.correctRankOrder = correctRankOrder;
+            this.points = points;
+            this.requiredPoints = requiredPoints;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getCurrentRank() {
+            return currentRank;
+        }
+
+        public String getCorrectRank() {
+            return correctRank;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        /**
+         * The points the correct rank asks for.
+         */
+        public long getRequiredPoints() {
+            return requiredPoints;
+        }
+
+        /**
+         * Lower rank_order is the higher rank, so a correct rank with a higher order is a rank down.
+         */
+        public boolean isRankDown() {
+            return correctRankOrder > currentRankOrder;
+        }
+    }
+
+    /**
+     * Rank orders and the numeric requirement thresholds, taken from {@link RankLadder} with every full rebuild.
+     */
+    private static final class Ladder {
+        final Map<String, Integer> orders;
+        final Map<String, String> names;
+        // threshold -> rank, the highest threshold at or below a member's points is their correct rank
+        final NavigableMap<Long, String> thresholds;
+
+        Ladder(Map<String, Integer> orders, Map<String, String> names, NavigableMap<Long, String> thresholds) {
+            this.orders = orders;
+            this.names = names;
+            this.thresholds = thresholds;
+        }
+    }
+
+    // Keyed by lower case username, so the candidates come out sorted by name
+    private static final ConcurrentSkipListMap<String, Candidate> candidates = new ConcurrentSkipListMap<>();
+    private static volatile Ladder ladder;
+    // Bumped by every invalidation, a rebuild that raced with one doesn't count as current
+    private static final AtomicLong version = new AtomicLong();
+
+    static {
+        MetricsReporter.register("rank-eligibility", () -> "candidates=" + candidates.size() + " built=" + (ladder != null));
+        RankLadder.addListener(rankLadder -> {
+            invalidate();
+            rebuildInBackground();
+        });
+    }
+
+    private RankEligibility() {
+    }
+
+    /**
+     * Returns every member who should be ranked up or down, sorted by name. Builds the view first if it hasn't been
+     * built yet, or if the background rebuild after a change to the ranks or requirements hasn't finished.
+     */
+    public static List<Candidate> getCandidates() {
+        if (ladder == null) {
+            try (Connection connection = Database.getConnection()) {
+                rebuild(connection);
+            } catch (SQLException e) {
+                logger.error("SQL Exception while building rank eligibility: ", e);
+            }
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * Recomputes every member.
+     */
+    public static synchronized void rebuild(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        long rebuildVersion = version.get();
+        Ladder current = loadLadder(RankLadder.get());
+        Map<String, Candidate> rebuilt = new HashMap<>();
+        String query = "SELECT username, `rank`, points FROM members";
+        try (PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Candidate candidate = evaluate(current, rs.getString("username"), rs.getString("rank"), rs.getInt("points"));
+                if (candidate != null) {
+                    rebuilt.put(key(candidate.username), candidate);
+                }
+            }
+        }
+        candidates.keySet().retainAll(rebuilt.keySet());
+        candidates.putAll(rebuilt);
+        if (version.get() == rebuildVersion) {
+            ladder = current;
+        }
+        logger.info("Rebuilt rank eligibility: {} candidates in {} ms.", rebuilt.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Recomputes the given members, by character name. Members that no longer exist are dropped. If the view isn't
+     * built, it is rebuilt as a whole instead, so no change is lost.
+     */
+    public static synchronized void refresh(Connection connection, Collection<String> usernames) throws SQLException {
+        Ladder current = ladder;
+        if (current == null) {
+            rebuild(connection);
+            return;
+        }
+        for (List<String> chunk : Database.chunks(usernames, CHUNK_SIZE)) {
+            Set<String> missing = new HashSet<>();
+            chunk.forEach(username -> missing.add(key(username)));
+
+            String query = "SELECT username, `rank`, points FROM members WHERE username IN (" + Database.placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String username = rs.getString("username");
+                        missing.remove(key(username));
+                        Candidate candidate = evaluate(current, username, rs.getString("rank"), rs.getInt("points"));
+                        if (candidate != null) {
+                            candidates.put(key(username), candidate);
+                        } else {
+                            candidates.remove(key(username));
+                        }
+                    }
+                }
+            }
+            candidates.keySet().removeAll(missing);
+        }
+    }
+
+    private static void invalidate() {
+        version.incrementAndGet();
+        ladder = null;
+    }
+
+    // Keeps the rebuild off the thread that reloaded the ladder, often a command
+    private static void rebuildInBackground() {
+        try {
+            BotExecutors.background().execute(() -> {
+                try (Connection connection = Database.getConnection()) {
+                    rebuild(connection);
+                } catch (SQLException e) {
+                    logger.error("SQL Exception while rebuilding rank eligibility: ", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Couldn't queue the rank eligibility rebuild, it is rebuilt on the next read or refresh.");
+        }
+    }
+
+    private static Candidate evaluate(Ladder ladder, String username, String rank, int points) {
+        if (username == null || rank == null || EXCLUDED_RANKS.contains(key(rank))) {
+            return null;
+        }
+        Integer currentOrder = ladder.orders.get(key(rank));
+        Map.Entry<Long, String> matching = ladder.thresholds.floorEntry((long) points);
+        if (currentOrder == null || matching == null) {
+            return null;
+        }
+        int correctOrder = ladder.orders.get(key(matching.getValue()));
+        if (correctOrder == currentOrder) {
+            return null;
+        }
+        return new Candidate(username, rank, ladder.names.get(key(matching.getValue())), currentOrder, correctOrder,
+                points, matching.getKey());
+    }
+
+    private static Ladder loadLadder(RankLadder rankLadder) {
+        Map<String, Integer> orders = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (String rank : rankLadder.getRanks()) {
+            orders.putIfAbsent(key(rank), rankLadder.getOrder(rank));
+            names.putIfAbsent(key(rank), rank);
+        }
+
+        NavigableMap<Long, String> thresholds = new TreeMap<>();
+        for (RankLadder.Requirement requirement : rankLadder.getRequirements()) {
+            String rank = requirement.getRank();
+            String value = requirement.getRequiredValue();
+            if (RankRequirementEngine.OTHER.equalsIgnoreCase(requirement.getType())
+                    || value == null || value.length() > 18 || !NUMERIC.matcher(value).matches()
+                    || !orders.containsKey(key(rank))) {
+                continue;
+            }
+            // Two ranks asking for the same number: keep the higher one
+            thresholds.merge(Long.parseLong(value), rank,
+                    (existing, candidate) -> orders.get(key(candidate)) < orders.get(key(existing)) ? candidate : existing);
+        }
+        return new Ladder(orders, names, thresholds);
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,96 @@
+package org.javacord.Discord302Party.service;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-checks the rank requirements and the {@link RankEligibility} of members right after their points or membership
+ * changed, instead of waiting for the next full pass of {@link RankRequirementUpdater}. Members are collected for
+ * {@code RANK_EVALUATION_DELAY_MS} (2 seconds by default) and then checked together, so a burst of gives or a
+ * role-wide distribution is one pass.
+ */
+public final class RankEvaluationQueue {
+
+    private static final Logger logger = LogManager.getLogger(RankEvaluationQueue.class);
+    private static final Dotenv dotenv = Dotenv.load();
+    private static final long DELAY_MS = Long.parseLong(dotenv.get("RANK_EVALUATION_DELAY_MS", "2000"));
+
+    private static final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean scheduled = new AtomicBoolean();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rank-evaluation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong enqueued = new AtomicLong();
+    private static final AtomicLong evaluated = new AtomicLong();
+    private static final AtomicLong passes = new AtomicLong();
+
+    static {
+        MetricsReporter.register("rank-evaluation", RankEvaluationQueue::describe);
+    }
+
+    private RankEvaluationQueue() {
+    }
+
+    /**
+     * Queues the members, by character name, for a rank requirement check. Null names are ignored.
+     */
+    public static void enqueue(String... usernames) {
+        enqueue(Arrays.asList(usernames));
+    }
+
+    public static void enqueue(Collection<String> usernames) {
+        for (String username : usernames) {
+            if (username != null && pending.add(username)) {
+                enqueued.incrementAndGet();
+            }
+        }
+        if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(RankEvaluationQueue::drain, DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void drain() {
+        // Cleared before taking the batch, so members queued while this pass runs get a pass of their own
+        scheduled.set(false);
+        List<String> batch = new ArrayList<>(pending);
+        pending.removeAll(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = Database.getConnection()) {
+            RankRequirementEngine.validate(connection, batch);
+            RankEligibility.refresh(connection, batch);
+            evaluated.addAndGet(batch.size());
+            passes.incrementAndGet();
+        } catch (SQLException | RuntimeException e) {
+            // The periodic full pass picks these members up again
+            logger.error("Error re-checking rank requirements for {} members: ", batch.size(), e);
+        }
+    }
+
+    private static String describe() {
+        return String.format("enqueued=%d evaluated=%d passes=%d pending=%d",
+                enqueued.get(), evaluated.get(), passes.get(), pending.size());
+    }
+}
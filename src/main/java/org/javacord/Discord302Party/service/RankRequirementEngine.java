@@ -0,0 +1,232 @@
+package org.javacord.Discord302Party.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.database.ValidationLog;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the requirements for the next rank of linked members in a fixed number of queries: the ladder and the
+ * requirements come from {@link RankLadder}, each metric is computed for all members with a single GROUP BY, and the
+ * requirements are then evaluated in memory. Requirements a member is already validated for are skipped, see
+ * {@link ValidationLog}.
+ * <p>
+ * Names and ranks are matched case-insensitively, like the MySQL collation does.
+ */
+final class RankRequirementEngine {
+
+    private static final Logger logger = LogManager.getLogger(RankRequirementEngine.class);
+    private static final int CHUNK_SIZE = 500;
+
+    static final String POINTS = "Points";
+    static final String DIFFERENT_PLAYERS = "Points from X different players";
+    static final String DIFFERENT_RANKS = "Points from X different ranks";
+    static final String TIME_IN_CLAN = "Time in Clan";
+    static final String TIME_AT_RANK = "Time at Current Rank";
+    static final String OTHER = "Other";
+
+    /**
+     * A linked member as the requirements see them.
+     */
+    static final class Standing {
+        final String username;
+        final String rank;
+        final int points;
+        final int monthsAtRank;
+
+        Standing(String username, String rank, int points, int monthsAtRank) {
+            this.username = username;
+            this.rank = rank;
+            this.points = points;
+            this.monthsAtRank = monthsAtRank;
+        }
+    }
+
+    private RankRequirementEngine() {
+    }
+
+    /**
+     * Validates the next rank requirements of every linked member and logs the ones that are met.
+     *
+     * @return the number of validation_log rows written.
+     */
+    static int validateAll(Connection connection) throws SQLException {
+        return validate(connection, null);
+    }
+
+    /**
+     * Validates the next rank requirements of the given members, by character name, and logs the ones that are met.
+     * Members that aren't linked to a Discord account are skipped, like in a full pass.
+     *
+     * @param usernames the members to check, or null for every linked member.
+     * @return the number of validation_log rows written.
+     */
+    static int validate(Connection connection, Collection<String> usernames) throws SQLException {
+        long started = System.nanoTime();
+        RankLadder ladder = RankLadder.get();
+        Set<String> types = requirementTypes(ladder);
+        ValidationLog.ensureLoaded();
+
+        int[] totals = new int[2];
+        if (usernames == null) {
+            validate(connection, ladder, types, null, totals);
+        } else {
+            for (List<String> chunk : Database.chunks(usernames, CHUNK_SIZE)) {
+                validate(connection, ladder, types, chunk, totals);
+            }
+        }
+
+        logger.info("Checked rank requirements for {} members, {} validations logged in {} ms.",
+                totals[0], totals[1], (System.nanoTime() - started) / 1_000_000);
+        return totals[1];
+    }
+
+    // Adds the number of members checked and validations written to totals
+    private static void validate(Connection connection, RankLadder ladder, Set<String> types, List<String> usernames,
+                                 int[] totals) throws SQLException {
+        // Only the metrics some requirement uses are computed
+        Map<String, Integer> differentPlayers = types.contains(DIFFERENT_PLAYERS)
+                ? loadMetric(connection, "SELECT character_name, COUNT(DISTINCT related_user) " +
+                "FROM points_transactions WHERE points_change > 0 AND " + filter("character_name", usernames) +
+                " GROUP BY character_name", usernames)
+                : Map.of();
+        Map<String, Integer> differentRanks = types.contains(DIFFERENT_RANKS)
+                ? loadMetric(connection, "SELECT pt.character_name, COUNT(DISTINCT r.rank) " +
+                "FROM points_transactions pt " +
+                "JOIN discord_users du ON pt.related_user = du.character_name " +
+                "JOIN config r ON du.rank = r.rank " +
+                "WHERE pt.points_change > 0 AND " + filter("pt.character_name", usernames) +
+                " GROUP BY pt.character_name", usernames)
+                : Map.of();
+        Map<String, Integer> monthsInClan = types.contains(TIME_IN_CLAN)
+                ? loadMetric(connection, "SELECT character_name, TIMESTAMPDIFF(MONTH, MIN(timestamp), NOW()) " +
+                "FROM points_transactions WHERE " + filter("character_name", usernames) +
+                " GROUP BY character_name", usernames)
+                : Map.of();
+
+        Set<Integer> invalidRequirements = new HashSet<>();
+        List<ValidationLog.Validation> validations = new ArrayList<>();
+        for (Standing member : loadStandings(connection, usernames)) {
+            if (member.rank == null || member.rank.equalsIgnoreCase("owner")) {
+                continue;
+            }
+            String nextRank = ladder.getNextRank(member.rank);
+            if (nextRank == null) {
+                logger.warn("Next rank not found for the current rank: {}, Character Name: {}", member.rank, member.username);
+                continue;
+            }
+            totals[0]++;
+
+            String name = key(member.username);
+            for (RankLadder.Requirement requirement : ladder.getRequirements(nextRank)) {
+                // Already logged, which is also the only way an "Other" requirement is met: staff validated it
+                if (ValidationLog.isValidated(member.username, requirement.getId()) || requirement.getType().equals(OTHER)) {
+                    continue;
+                }
+                int requiredValue;
+                try {
+                    requiredValue = Integer.parseInt(requirement.getRequiredValue());
+                } catch (NumberFormatException e) {
+                    if (invalidRequirements.add(requirement.getId())) {
+                        logger.warn("Invalid numeric value for requirement: {}", requirement.getId());
+                    }
+                    continue;
+                }
+                boolean met;
+                switch (requirement.getType()) {
+                    case POINTS:
+                        met = member.points >= requiredValue;
+                        break;
+                    case DIFFERENT_PLAYERS:
+                        met = differentPlayers.getOrDefault(name, 0) >= requiredValue;
+                        break;
+                    case DIFFERENT_RANKS:
+                        met = differentRanks.getOrDefault(name, 0) >= requiredValue;
+                        break;
+                    case TIME_IN_CLAN:
+                        met = monthsInClan.getOrDefault(name, 0) >= requiredValue;
+                        break;
+                    case TIME_AT_RANK:
+                        met = member.monthsAtRank >= requiredValue;
+                        break;
+                    default:
+                        met = false;
+                        break;
+                }
+
+                if (met) {
+                    validations.add(new ValidationLog.Validation(member.username, nextRank, requirement.getId()));
+                }
+            }
+        }
+        totals[1] += ValidationLog.recordSystemValidations(connection, validations);
+    }
+
+    // The requirement types some rank asks for
+    private static Set<String> requirementTypes(RankLadder ladder) {
+        Set<String> types = new HashSet<>();
+        for (RankLadder.Requirement requirement : ladder.getRequirements()) {
+            types.add(requirement.getType());
+        }
+        return types;
+    }
+
+    private static List<Standing> loadStandings(Connection connection, List<String> usernames) throws SQLException {
+        List<Standing> standings = new ArrayList<>();
+        String query = "SELECT m.username, m.rank, m.points, TIMESTAMPDIFF(MONTH, m.last_rank_update, NOW()) AS time_at_rank " +
+                "FROM discord_users du JOIN members m ON m.username = du.character_name WHERE " + filter("m.username", usernames);
+        try (PreparedStatement stmt = prepare(connection, query, usernames);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                standings.add(new Standing(rs.getString("username"), rs.getString("rank"),
+                        rs.getInt("points"), rs.getInt("time_at_rank")));
+            }
+        }
+        return standings;
+    }
+
+    // Runs a "name, value" query, members without a row count as 0
+    private static Map<String, Integer> loadMetric(Connection connection, String query, List<String> usernames) throws SQLException {
+        Map<String, Integer> values = new HashMap<>();
+        try (PreparedStatement stmt = prepare(connection, query, usernames);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                values.merge(key(rs.getString(1)), rs.getInt(2), Math::max);
+            }
+        }
+        return values;
+    }
+
+    // Restricts a query to the given members, or to nobody in particular for a full pass
+    private static String filter(String column, List<String> usernames) {
+        return usernames == null ? "1 = 1" : column + " IN (" + Database.placeholders(usernames.size()) + ")";
+    }
+
+    private static PreparedStatement prepare(Connection connection, String query, List<String> usernames) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(query);
+        if (usernames != null) {
+            for (int i = 0; i < usernames.size(); i++) {
+                stmt.setString(i + 1, usernames.get(i));
+            }
+        }
+        return stmt;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,147 @@
+package org.javacord.Discord302Party.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+import org.javacord.api.DiscordApi;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Looks up server roles by name, case-insensitively, and knows which of them are rank, temporary rank or Green Party
+ * Hats roles, so assigning roles doesn't scan every role of the server for each member.
+ * <p>
+ * The index of a server is built when it is first used, or by {@link #start(DiscordApi, Server)}, and rebuilt when a
+ * role is created, deleted, renamed or moved, or when the rank ladder changes. Like
+ * {@link Server#getRolesByNameIgnoreCase(String)}, the lowest role wins when two roles share a name.
+ */
+public final class RoleIndex {
+
+    private static final Logger logger = LogManager.getLogger(RoleIndex.class);
+
+    // deputy_owner is shown as Co-Owner on Discord
+    private static final String DEPUTY_OWNER = "deputy_owner";
+    private static final String CO_OWNER = "Co-Owner";
+
+    private static final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private static final AtomicLong rebuilds = new AtomicLong();
+
+    static {
+        MetricsReporter.register("role-index", RoleIndex::describe);
+    }
+
+    private static final class Snapshot {
+        // Which roles are rank roles depends on the configured ranks
+        final RankLadder ladder;
+        final Map<String, Role> byName;
+        final Set<Long> rankRoleIds;
+        final Set<Long> managedRoleIds;
+
+        Snapshot(Server server, RankLadder ladder) {
+            this.ladder = ladder;
+            Map<String, Role> names = new HashMap<>();
+            Set<Long> rankRoles = new HashSet<>();
+            Set<Long> managedRoles = new HashSet<>();
+            for (Role role : server.getRoles()) {
+                // getRoles() is lowest first
+                names.putIfAbsent(key(role.getName()), role);
+                if (ladder.contains(role.getName()) || role.getName().equalsIgnoreCase(CO_OWNER)) {
+                    rankRoles.add(role.getId());
+                    managedRoles.add(role.getId());
+                } else if (RankLadder.isTemporaryRank(role.getName())
+                        || role.getIdAsString().equals(RoleReconciler.GREEN_PARTY_HATS_ROLE_ID)) {
+                    managedRoles.add(role.getId());
+                }
+            }
+            this.byName = Collections.unmodifiableMap(names);
+            this.rankRoleIds = Collections.unmodifiableSet(rankRoles);
+            this.managedRoleIds = Collections.unmodifiableSet(managedRoles);
+        }
+    }
+
+    private RoleIndex() {
+    }
+
+    /**
+     * Builds the index of the server and keeps it up to date with the role events of the api.
+     */
+    public static void start(DiscordApi api, Server server) {
+        api.addRoleCreateListener(event -> invalidate(event.getServer()));
+        api.addRoleDeleteListener(event -> invalidate(event.getServer()));
+        api.addRoleChangeNameListener(event -> invalidate(event.getServer()));
+        api.addRoleChangePositionListener(event -> invalidate(event.getServer()));
+        Snapshot snapshot = snapshot(server);
+        logger.info("Indexed {} roles of {}.", snapshot.byName.size(), server.getName());
+    }
+
+    /**
+     * Returns the role with the name, ignoring case.
+     */
+    public static Optional<Role> getRole(Server server, String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(snapshot(server).byName.get(key(name)));
+    }
+
+    /**
+     * Returns the role of the rank, Co-Owner for deputy_owner.
+     */
+    public static Optional<Role> getRankRole(Server server, String rank) {
+        return getRole(server, DEPUTY_OWNER.equalsIgnoreCase(rank) ? CO_OWNER : rank);
+    }
+
+    /**
+     * Returns whether the role is the role of a configured rank.
+     */
+    public static boolean isRankRole(Server server, Role role) {
+        return snapshot(server).rankRoleIds.contains(role.getId());
+    }
+
+    /**
+     * Returns whether the bot hands out the role: the Green Party Hats role and the rank and temporary rank roles.
+     */
+    public static boolean isManaged(Server server, Role role) {
+        return snapshot(server).managedRoleIds.contains(role.getId());
+    }
+
+    private static void invalidate(Server server) {
+        snapshots.remove(server.getId());
+    }
+
+    private static Snapshot snapshot(Server server) {
+        RankLadder ladder = RankLadder.get();
+        Snapshot snapshot = snapshots.get(server.getId());
+        if (snapshot != null) {
+            if (snapshot.ladder == ladder) {
+                return snapshot;
+            }
+            snapshots.remove(server.getId(), snapshot);
+        }
+        // A role event removing the entry waits for a build in progress, so it can't leave a stale index behind
+        return snapshots.computeIfAbsent(server.getId(), id -> {
+            rebuilds.incrementAndGet();
+            return new Snapshot(server, ladder);
+        });
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String describe() {
+        int roles = 0;
+        for (Snapshot snapshot : snapshots.values()) {
+            roles += snapshot.byName.size();
+        }
+        return "servers=" + snapshots.size() + " roles=" + roles + " rebuilds=" + rebuilds.get();
+    }
+}
@@ -0,0 +1,243 @@
+package org.javacord.Discord302Party.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.utils.DiscordMutationQueue;
+import org.javacord.Discord302Party.utils.MetricsReporter;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Brings the clan roles of a member in line with their clan standing: the Green Party Hats role, the role of their rank
+ * and the role of their temporary rank. The roles they should have are worked out against the roles they have, and the
+ * difference is applied with one member update instead of one add or remove call per role. Roles the bot doesn't
+ * manage are kept as they are.
+ * <p>
+ * Updates go through {@link DiscordMutationQueue}, keyed by member. While an update waits, later changes for the same
+ * member are merged into it rather than replacing it: a new standing replaces the old one, but keeps the rank it asked
+ * for if the new one doesn't name a rank, and temporary roles taken away are remembered until the update is sent. The
+ * roles are compared with the member's roles when the update is sent.
+ */
+public final class RoleReconciler {
+
+    private static final Logger logger = LogManager.getLogger(RoleReconciler.class);
+
+    public static final String GREEN_PARTY_HATS_ROLE_ID = "1168065194858119218";
+
+    private enum Kind {
+        // Only take away the temporary roles that expired
+        NONE,
+        STANDING,
+        CLAN_ROLES_REMOVED,
+        ALL_ROLES_REMOVED
+    }
+
+    /**
+     * The roles a member should end up with, merged from every change submitted since their last update was sent.
+     */
+    private static final class Desired {
+        Kind kind = Kind.NONE;
+        String rank;
+        String temporaryRank;
+        // Keep temporary rank roles the member has besides temporaryRank, unless they expired
+        boolean keepTemporaryRoles;
+        final Set<String> expiredTemporaryRanks = new HashSet<>();
+    }
+
+    // Changes not sent yet, keyed like the queue
+    private static final Map<String, Desired> pending = new ConcurrentHashMap<>();
+
+    private static final AtomicLong reconciled = new AtomicLong();
+    private static final AtomicLong updated = new AtomicLong();
+
+    static {
+        MetricsReporter.register("role-reconciler", () -> "reconciled=" + reconciled.get() + " updated=" + updated.get());
+    }
+
+    private RoleReconciler() {
+    }
+
+    /**
+     * Gives a linked clan member the Green Party Hats role, the role of the rank and the role of the temporary rank,
+     * and takes away any other rank or temporary rank role.
+     *
+     * @param rank          the clan rank, or null to keep the rank role the member has.
+     * @param temporaryRank the temporary rank, or null for none.
+     * @return completes once Discord applied the update, or once it was found that nothing had to change.
+     */
+    public static CompletableFuture<Void> reconcile(Server server, User user, String rank, String temporaryRank,
+                                                    DiscordMutationQueue.Priority priority) {
+        return reconcile(server, user, rank, temporaryRank, false, priority);
+    }
+
+    /**
+     * Like {@link #reconcile(Server, User, String, String, DiscordMutationQueue.Priority)}, but keeps the temporary rank
+     * roles the member already has. For checks against temporary_ranks, which doesn't know about temporary roles given
+     * by hand; expired ones are taken away with {@link #removeTemporaryRole}.
+     */
+    public static CompletableFuture<Void> reconcileKeepingTemporaryRoles(Server server, User user, String rank,
+                                                                         String temporaryRank,
+                                                                         DiscordMutationQueue.Priority priority) {
+        return reconcile(server, user, rank, temporaryRank, true, priority);
+    }
+
+    private static CompletableFuture<Void> reconcile(Server server, User user, String rank, String temporaryRank,
+                                                     boolean keepTemporaryRoles, DiscordMutationQueue.Priority priority) {
+        return submit(server, user, priority, desired -> {
+            if (desired.kind != Kind.STANDING || rank != null) {
+                desired.rank = rank;
+            }
+            // Temporary roles are only kept if every standing merged into the update asked for it
+            desired.keepTemporaryRoles = keepTemporaryRoles && (desired.kind != Kind.STANDING || desired.keepTemporaryRoles);
+            desired.kind = Kind.STANDING;
+            desired.temporaryRank = temporaryRank;
+            if (temporaryRank != null) {
+                desired.expiredTemporaryRanks.remove(temporaryRank.toLowerCase(Locale.ROOT));
+            }
+        });
+    }
+
+    /**
+     * Takes away the role of a temporary rank that expired, and no other role.
+     */
+    public static CompletableFuture<Void> removeTemporaryRole(Server server, User user, String temporaryRank,
+                                                              DiscordMutationQueue.Priority priority) {
+        return submit(server, user, priority, desired -> {
+            desired.expiredTemporaryRanks.add(temporaryRank.toLowerCase(Locale.ROOT));
+            if (temporaryRank.equalsIgnoreCase(desired.temporaryRank)) {
+                desired.temporaryRank = null;
+            }
+        });
+    }
+
+    /**
+     * Takes the Green Party Hats, rank and temporary rank roles away from someone who left the clan.
+     */
+    public static CompletableFuture<Void> removeClanRoles(Server server, User user, DiscordMutationQueue.Priority priority) {
+        return submit(server, user, priority, desired -> {
+            desired.kind = Kind.CLAN_ROLES_REMOVED;
+            desired.rank = null;
+            desired.temporaryRank = null;
+        });
+    }
+
+    /**
+     * Takes every role away, for someone whose link is archived.
+     */
+    public static CompletableFuture<Void> removeAllRoles(Server server, User user, DiscordMutationQueue.Priority priority) {
+        return submit(server, user, priority, desired -> {
+            desired.kind = Kind.ALL_ROLES_REMOVED;
+            desired.rank = null;
+            desired.temporaryRank = null;
+        });
+    }
+
+    /**
+     * Returns the role of the rank, Co-Owner for deputy_owner.
+     */
+    public static Optional<Role> getRankRole(Server server, String rank) {
+        return RoleIndex.getRankRole(server, rank);
+    }
+
+    private static CompletableFuture<Void> submit(Server server, User user, DiscordMutationQueue.Priority priority,
+                                                  Consumer<Desired> change) {
+        String key = "roles:" + server.getId() + ":" + user.getId();
+        pending.compute(key, (k, desired) -> {
+            Desired merged = desired != null ? desired : new Desired();
+            change.accept(merged);
+            return merged;
+        });
+        // If the update already took the change with it, this one finds nothing left to send once it completes
+        return DiscordMutationQueue.submit(key, DiscordMutationQueue.ROUTE_MEMBER, priority, () -> {
+            Desired desired = pending.remove(key);
+            return desired == null ? CompletableFuture.completedFuture(null) : apply(server, user, desired);
+        });
+    }
+
+    private static CompletableFuture<Void> apply(Server server, User user, Desired desired) {
+        Set<Role> current = new LinkedHashSet<>(user.getRoles(server));
+        Set<Role> roles = new LinkedHashSet<>();
+        switch (desired.kind) {
+            case STANDING:
+                addStanding(server, current, roles, desired.rank, desired.temporaryRank, desired.keepTemporaryRoles);
+                break;
+            case CLAN_ROLES_REMOVED:
+                current.stream().filter(role -> !RoleIndex.isManaged(server, role)).forEach(roles::add);
+                break;
+            case ALL_ROLES_REMOVED:
+                break;
+            default:
+                roles.addAll(current);
+                break;
+        }
+        for (String temporaryRank : desired.expiredTemporaryRanks) {
+            RoleIndex.getRole(server, temporaryRank).ifPresent(roles::remove);
+        }
+        return apply(server, user, current, roles);
+    }
+
+    private static void addStanding(Server server, Set<Role> current, Set<Role> desired, String rank,
+                                    String temporaryRank, boolean keepTemporaryRoles) {
+        for (Role role : current) {
+            if (!RoleIndex.isManaged(server, role) || (rank == null && RoleIndex.isRankRole(server, role))
+                    || (keepTemporaryRoles && RankLadder.isTemporaryRank(role.getName()))) {
+                desired.add(role);
+            }
+        }
+        Optional<Role> greenPartyHats = server.getRoleById(GREEN_PARTY_HATS_ROLE_ID);
+        if (greenPartyHats.isPresent()) {
+            desired.add(greenPartyHats.get());
+        } else {
+            logger.warn("Couldn't find the 'Green Party Hats' role.");
+        }
+        if (rank != null) {
+            Optional<Role> rankRole = getRankRole(server, rank);
+            if (rankRole.isPresent()) {
+                desired.add(rankRole.get());
+            } else {
+                logger.warn("Role not found on the server for rank: {}", rank);
+            }
+        }
+        if (temporaryRank != null) {
+            Optional<Role> temporaryRole = RoleIndex.getRole(server, temporaryRank);
+            if (temporaryRole.isPresent()) {
+                desired.add(temporaryRole.get());
+            } else {
+                logger.warn("Role not found on the server for rank: {}", temporaryRank);
+            }
+        }
+    }
+
+    private static CompletableFuture<Void> apply(Server server, User user, Set<Role> current, Set<Role> desired) {
+        reconciled.incrementAndGet();
+        // @everyone isn't a role that can be given or taken
+        current.removeIf(Role::isEveryoneRole);
+        desired.removeIf(Role::isEveryoneRole);
+        if (current.equals(desired)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        desired.stream().filter(role -> !current.contains(role)).forEach(role -> added.add(role.getName()));
+        current.stream().filter(role -> !desired.contains(role)).forEach(role -> removed.add(role.getName()));
+        updated.incrementAndGet();
+        logger.info("Updating roles of {}: added {}, removed {}", user.getName(), added, removed);
+        return server.updateRoles(user, desired);
+    }
+}
@@ -1,85 +1,90 @@
 package org.javacord.Discord302Party.service;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUser;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.MemberRepository;
+import org.javacord.Discord302Party.utils.DiscordMutationQueue;
 import org.javacord.api.entity.permission.Role;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
 import org.javacord.api.util.logging.ExceptionLogger;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class UserVerificationService {
 
-    // Load environment variables
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
     // Logger instance
     private static final Logger logger = LogManager.getLogger(UserVerificationService.class);
 
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return Database.getConnection();
     }
 
     public void verifyAllUsers(Server server) {
-        try (Connection connection = connect()) {
-            String query = "SELECT * FROM discord_users";
-            try (PreparedStatement preparedStatement = connection.prepareStatement(query);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
-
-                Role greenPartyHatRole = server.getRoleById("1168065194858119218").orElse(null);
-                if (greenPartyHatRole == null) {
-                    logger.error("Couldn't find the 'Green Party Hat' role.");
-                    return;
-                }
+        Role greenPartyHatRole = server.getRoleById(RoleReconciler.GREEN_PARTY_HATS_ROLE_ID).orElse(null);
+        if (greenPartyHatRole == null) {
+            logger.error("Couldn't find the 'Green Party Hat' role.");
+            return;
+        }
 
-                while (resultSet.next()) {
-                    long discordUid = resultSet.getLong("discord_uid");
-                    String characterName = resultSet.getString("character_name");
-                    String rank = getRank(characterName);
-                    String tempRank = getTempRank(discordUid);
-
-                    Optional<User> userOptional = server.getMemberById(discordUid);
-                    if (userOptional.isPresent()) {
-                        User user = userOptional.get();
-
-                        // Check if the user already has the Green Party Hat role
-                        if (!user.getRoles(server).contains(greenPartyHatRole)) {
-                            user.addRole(greenPartyHatRole).exceptionally(ExceptionLogger.get());
-                        }
+        // Load every linked user, their clan rank and temporary rank up front instead of querying per user
+        List<DiscordUser> discordUsers = DiscordUserRepository.getAll();
+        Set<String> characterNames = new HashSet<>();
+        discordUsers.forEach(discordUser -> characterNames.add(discordUser.getCharacterName()));
+        Map<String, String> ranks;
+        Map<Long, String> tempRanks;
+        try {
+            // Without these every user would look like they left the clan, or lose their temporary role
+            ranks = MemberRepository.findRanksByCharacterName(characterNames);
+            tempRanks = DiscordUserRepository.getTemporaryRanks();
+        } catch (SQLException e) {
+            logger.error("SQL Exception while fetching member ranks, skipping user verification.", e);
+            return;
+        }
 
-                        // Assign the rank and temporary rank roles
-                        if (rank != null) {
-                            assignRoleToUser(server, user, rank);
-                            if (tempRank != null) {
-                                assignRoleToUser(server, user, tempRank);
-                            } else {
-                                // Remove any expired temporary roles
-                                removeExpiredTempRolesFromUser(server, connection, discordUid, user);
-                            }
-                        } else {
-                            logger.warn("Couldn't find the rank for character: {}. Moving data to archived_users.", characterName);
-                            moveUserToArchive(connection, resultSet);
-
-                            // Remove all roles except @everyone
-                            user.getRoles(server).forEach(role -> {
-                                if (!role.getName().equals("@everyone")) {
-                                    user.removeRole(role).exceptionally(e -> {
-                                        logger.warn("Failed to remove role {} from user {}: {}", role.getName(), user.getName(), e.getMessage());
-                                        return null;
-                                    });
-                                }
-                            });
+        try (Connection connection = connect()) {
+            for (DiscordUser discordUser : discordUsers) {
+                long discordUid = discordUser.getDiscordUid();
+                String characterName = discordUser.getCharacterName();
+                String rank = ranks.get(characterName);
+                String tempRank = tempRanks.get(discordUid);
+
+                Optional<User> userOptional = server.getMemberById(discordUid);
+                if (userOptional.isPresent()) {
+                    User user = userOptional.get();
+
+                    // Assign the Green Party Hat, rank and temporary rank roles in one update. Temporary roles the
+                    // member has are kept, temporary_ranks only knows the ones the bot tracks.
+                    if (rank != null) {
+                        RoleReconciler.reconcileKeepingTemporaryRoles(server, user, rank, tempRank, DiscordMutationQueue.Priority.BACKGROUND)
+                                .exceptionally(ExceptionLogger.get());
+                        // Merged into the update above, so an expired temporary rank isn't given back
+                        for (String expiredRank : deleteExpiredTempRanks(connection, discordUid)) {
+                            RoleReconciler.removeTemporaryRole(server, user, expiredRank, DiscordMutationQueue.Priority.BACKGROUND)
+                                    .exceptionally(ExceptionLogger.get());
                         }
                     } else {
-                        logger.warn("Couldn't find user with Discord UID: {}. Moving data to archived_users.", discordUid);
-                        moveUserToArchive(connection, resultSet);
+                        logger.warn("Couldn't find the rank for character: {}. Moving data to archived_users.", characterName);
+                        moveUserToArchive(connection, discordUser);
+
+                        // Remove all roles except @everyone
+                        RoleReconciler.removeAllRoles(server, user, DiscordMutationQueue.Priority.BACKGROUND).exceptionally(e -> {
+                            logger.warn("Failed to remove the roles of user {}: {}", user.getName(), e.getMessage());
+                            return null;
+                        });
                     }
+                } else {
+                    logger.warn("Couldn't find user with Discord UID: {}. Moving data to archived_users.", discordUid);
+                    moveUserToArchive(connection, discordUser);
                 }
             }
         } catch (SQLException e) {
@@ -87,20 +92,15 @@ public class UserVerificationService {
         }
     }
 
-    private void removeExpiredTempRolesFromUser(Server server, Connection connection, long discordUid, User user) throws SQLException {
+    private List<String> deleteExpiredTempRanks(Connection connection, long discordUid) throws SQLException {
+        List<String> expiredRanks = new ArrayList<>();
         String query = "SELECT `rank` FROM temporary_ranks WHERE discord_uid = ? AND added_date < (NOW() - INTERVAL 1 MONTH)";
         try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setLong(1, discordUid);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
                     String expiredRank = resultSet.getString("rank");
-                    Optional<Role> expiredRole = user.getRoles(server).stream()
-                            .filter(role -> role.getName().equalsIgnoreCase(expiredRank))
-                            .findFirst();
-                    if (expiredRole.isPresent()) {
-                        user.removeRole(expiredRole.get()).exceptionally(ExceptionLogger.get());
-                        logger.info("Removed expired temporary role {} from user {}", expiredRank, user.getName());
-                    }
+                    expiredRanks.add(expiredRank);
 
                     // Remove from database
                     String deleteSql = "DELETE FROM temporary_ranks WHERE discord_uid = ? AND `rank` = ?";
@@ -113,53 +113,10 @@ public class UserVerificationService {
                 }
             }
         }
+        return expiredRanks;
     }
 
-    private void assignRoleToUser(Server server, User user, String roleName) {
-        Optional<Role> roleOptional = server.getRolesByNameIgnoreCase(roleName).stream().findFirst();
-        if (roleOptional.isPresent()) {
-            Role role = roleOptional.get();
-            if (!user.getRoles(server).contains(role)) {
-                user.addRole(role).exceptionally(ExceptionLogger.get());
-                logger.info("Assigned role {} to user {}", role.getName(), user.getName());
-            }
-        } else {
-            logger.warn("Role {} not found on the server", roleName);
-        }
-    }
-
-
-    private String getRank(String characterName) {
-        String query = "SELECT `rank` FROM members WHERE REPLACE(username, '_', ' ') = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, characterName);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getString("rank");
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception occurred while fetching rank for character: {}.", characterName, e);
-        }
-        return null;
-    }
-
-    private String getTempRank(long discordUID) {
-        String query = "SELECT `rank` FROM temporary_ranks WHERE discord_uid = ?";
-        try (Connection connection = connect();
-             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, String.valueOf(discordUID));
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getString("rank");
-            }
-        } catch (SQLException e) {
-            logger.error("SQL Exception occurred while fetching Temporary rank for UID: {}.", discordUID, e);
-        }
-        return null;
-    }
-
-    private void moveUserToArchive(Connection connection, ResultSet resultSet) throws SQLException {
+    private void moveUserToArchive(Connection connection, DiscordUser discordUser) throws SQLException {
         try {
             // Begin transaction
             connection.setAutoCommit(false);
@@ -167,23 +124,24 @@ public class UserVerificationService {
             // Insert the row into archived_users
             String insertQuery = "INSERT INTO archived_users (discord_uid, character_name, `rank`, replit_user_id) VALUES (?, ?, ?, ?)";
             try (PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
-                insertStmt.setLong(1, resultSet.getLong("discord_uid"));
-                insertStmt.setString(2, resultSet.getString("character_name"));
-                insertStmt.setString(3, resultSet.getString("rank"));
-                insertStmt.setLong(4, resultSet.getLong("replit_user_id"));
+                insertStmt.setLong(1, discordUser.getDiscordUid());
+                insertStmt.setString(2, discordUser.getCharacterName());
+                insertStmt.setString(3, discordUser.getRank());
+                insertStmt.setLong(4, discordUser.getReplitUserId());
                 insertStmt.executeUpdate();
             }
 
             // Delete the row from discord_users
             String deleteQuery = "DELETE FROM discord_users WHERE discord_uid = ?";
             try (PreparedStatement deleteStmt = connection.prepareStatement(deleteQuery)) {
-                deleteStmt.setLong(1, resultSet.getLong("discord_uid"));
+                deleteStmt.setLong(1, discordUser.getDiscordUid());
                 deleteStmt.executeUpdate();
             }
 
             // Commit transaction
             connection.commit();
-            logger.info("User with Discord UID {} moved to archived_users.", resultSet.getLong("discord_uid"));
+            DiscordUserRepository.invalidate(discordUser.getDiscordUid());
+            logger.info("User with Discord UID {} moved to archived_users.", discordUser.getDiscordUid());
 
         } catch (SQLException e) {
             try {
@@ -191,7 +149,7 @@ public class UserVerificationService {
             } catch (SQLException rollbackException) {
                 logger.error("Error occurred during transaction rollback.", rollbackException);
             }
-            logger.error("SQL Exception occurred while moving user with Discord UID {} to archive.", resultSet.getLong("discord_uid"), e);
+            logger.error("SQL Exception occurred while moving user with Discord UID {} to archive.", discordUser.getDiscordUid(), e);
         } finally {
             try {
                 connection.setAutoCommit(true);
@@ -1,17 +1,13 @@
 package org.javacord.Discord302Party.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.utils.BotHttpClient;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,102 +17,30 @@ public class WOMClientService {
     private static final Dotenv dotenv = Dotenv.load();
     private static final String API_KEY = dotenv.get("WOM_API_KEY");
     private static final String USER_AGENT = dotenv.get("DISCORD_NAME");
-    private static final String BASE_URL = "https://api.wiseoldman.net/v2";
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
-
-    private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
-    }
+    private static final String BASE_URL = BotHttpClient.WOM_BASE_URL;
 
     public List<Member> getGroupMembers(int groupId) {
         String endpoint = String.format("/groups/%d", groupId);
-        String jsonResponse = sendGetRequest(endpoint);
-        logger.info(jsonResponse);
-        return parseGroupMembers(jsonResponse);
-    }
-
-    private String sendGetRequest(String endpoint) {
         try {
-            BufferedReader in = getIn(endpoint);
-            String inputLine;
-            StringBuilder content = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
-            }
-            in.close();
-
-            return content.toString();
+            // Decoded while the response streams in, the body is never held as text
+            List<Member> members = BotHttpClient.get(BASE_URL + endpoint, WomJsonDecoder::decodeGroupMembers,
+                    "User-Agent", USER_AGENT,
+                    "x-api-key", API_KEY);
+            logger.info("Fetched {} members of group {}", members.size(), groupId);
+            return members;
         } catch (Exception e) {
             logger.error("Error sending GET request to Wise Old Man API: {}", e.getMessage());
-            return null;
+            return new ArrayList<>();
         }
     }
 
-    private static BufferedReader getIn(String endpoint) throws IOException {
-        URL url = new URL(BASE_URL + endpoint);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-        // Set request properties
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("User-Agent", USER_AGENT);
-        if (API_KEY != null) {
-            connection.setRequestProperty("x-api-key", API_KEY);
-        }
-
-        // Get the response
-        return new BufferedReader(new InputStreamReader(connection.getInputStream()));
-    }
-
     public List<Member> parseGroupMembers(String jsonResponse) {
-        List<Member> members = new ArrayList<>();
-        try (Connection connection = connect()) {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode root = objectMapper.readTree(jsonResponse);
-
-            JsonNode memberships = root.get("memberships");
-            if (memberships != null && memberships.isArray()) {
-                for (JsonNode membership : memberships) {
-                    JsonNode player = membership.get("player");
-
-                    int WOMId = player.get("id").asInt();
-                    String username = player.get("username").asText();
-                    String rank = null;
-                    String temporaryRank = null;
-                    if (isTemporaryRank(membership.get("role").asText())) {
-                        temporaryRank = membership.get("role").asText();
-                        rank = null;
-                    } else {
-                        rank = membership.get("role").asText();
-                        temporaryRank = null;
-                    }
-                    Timestamp rankObtainedTimestamp = Timestamp.valueOf(membership.get("updatedAt").asText().replace("T", " ").replace("Z", ""));
-                    Timestamp joinDate = Timestamp.valueOf(membership.get("createdAt").asText().replace("T", " ").replace("Z", ""));
-
-                    members.add(new Member(WOMId, username, rank, rankObtainedTimestamp, joinDate, temporaryRank));
-                }
-            }
-
+        try {
+            return WomJsonDecoder.decodeGroupMembers(new ByteArrayInputStream(jsonResponse.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
             logger.error("Error parsing JSON response: {}", e.getMessage());
+            return new ArrayList<>();
         }
-        return members;
-    }
-
-    private boolean isTemporaryRank(String rank) {
-        // Here we check if the rank is in the list of known temporary ranks
-        String[] temporaryRanks = {"monarch", "competitor", "attacker", "enforcer", "defender", "ranger", "priest",
-                "magician", "runecrafter", "medic", "athlete", "herbologist", "thief", "crafter",
-                "fletcher", "miner", "smith", "fisher", "cook", "firemaker", "lumberjack", "slayer",
-                "farmer", "constructor", "hunter", "skiller"};
-
-        for (String tempRank : temporaryRanks) {
-            if (tempRank.equalsIgnoreCase(rank)) {
-                return true;
-            }
-        }
-        return false;
     }
 
     private String getTemporaryRank(Connection connection, String username) {
@@ -1,40 +1,45 @@
 package org.javacord.Discord302Party.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.database.Database;
+import org.javacord.Discord302Party.database.DiscordUser;
+import org.javacord.Discord302Party.database.DiscordUserRepository;
+import org.javacord.Discord302Party.database.RankLadder;
+import org.javacord.Discord302Party.utils.BotHttpClient;
+import org.javacord.Discord302Party.utils.DiscordMutationQueue;
 import org.javacord.api.DiscordApi;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.entity.user.User;
 import org.javacord.api.util.logging.ExceptionLogger;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
 import java.sql.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 public class WOMGroupUpdater {
 
     private static final Logger logger = LogManager.getLogger(WOMGroupUpdater.class);
     private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = "jdbc:mysql://" + dotenv.get("DB_HOST") + ":3306/" + dotenv.get("DB_NAME");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASS = dotenv.get("DB_PASS");
     private static final String WOM_API_KEY = dotenv.get("WOM_API_KEY");
     private static final String DISCORD_NAME = dotenv.get("DISCORD_NAME");
     private static final String GROUP_ID = dotenv.get("GROUP_ID");
+    private static final String WOM_GROUP_URL = BotHttpClient.WOM_BASE_URL + "/groups/" + GROUP_ID;
     private static final long UPDATE_INTERVAL = Long.parseLong(dotenv.get("UPDATE_INTERVAL", "3600")) * 1000;
+    // The activity feed is paged with the largest page WOM allows, up to this many pages per run
+    private static final int ACTIVITY_PAGE_SIZE = 50;
+    private static final int ACTIVITY_MAX_PAGES = Integer.parseInt(dotenv.get("WOM_ACTIVITY_MAX_PAGES", "20"));
+    // Sync every member, not only the changed ones, once per this many runs
+    private static final int FULL_SYNC_EVERY = Integer.parseInt(dotenv.get("WOM_FULL_SYNC_EVERY", "24"));
 
     private final DiscordApi api;
+    // Held for a whole run, the runs diff against the same snapshot and share runsSinceFullSync
+    private final ReentrantLock running = new ReentrantLock();
+    private int runsSinceFullSync;
 
     public WOMGroupUpdater(DiscordApi api) {
         this.api = api;
@@ -45,41 +50,62 @@ public class WOMGroupUpdater {
         timer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                updateGroupMembers();
+                if (!running.tryLock()) {
+                    logger.info("Skipping the scheduled WOM group update, the previous one is still running.");
+                    return;
+                }
+                try {
+                    runUpdate();
+                } finally {
+                    running.unlock();
+                }
             }
         }, 0, UPDATE_INTERVAL);
     }
 
+    /**
+     * Runs the WOM group update now. If one is already running, e.g. the scheduled one, this waits for it to finish
+     * and then runs again, so the caller still gets an up to date group.
+     */
     public void updateGroupMembers() {
+        running.lock();
         try {
-            // Fetch name changes from WOM API
-            checkAndUpdateNameChanges();
+            runUpdate();
+        } finally {
+            running.unlock();
+        }
+    }
 
-            String urlString = "https://api.wiseoldman.net/v2/groups/" + GROUP_ID;
-            URL url = new URL(urlString);
-            HttpsURLConnection conn = (HttpsURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("x-api-key", WOM_API_KEY);
-            conn.setRequestProperty("User-Agent", DISCORD_NAME);
+    private void runUpdate() {
+        try {
+            // Picks up edits made to config by hand
+            RankLadder.reload();
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            String inputLine;
-            StringBuilder content = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
-            }
-            in.close();
+            Timestamp lastProcessedTimestamp = loadLastProcessedActivityTime();
 
-            List<Member> members = new WOMClientService().parseGroupMembers(content.toString());
+            // The three fetches run at the same time, paced by the WOM rate limiter. They are applied in order below:
+            // name changes first so the members are matched by their new names, then the membership, then the activity.
+            long started = System.nanoTime();
+            CompletableFuture<List<WomJsonDecoder.NameChange>> nameChanges = getNameChanges("/name-changes");
+            CompletableFuture<List<Member>> groupMembers = BotHttpClient.getAsync(WOM_GROUP_URL, WomJsonDecoder::decodeGroupMembers,
+                    "x-api-key", WOM_API_KEY,
+                    "User-Agent", DISCORD_NAME);
+            CompletableFuture<ActivityFetch> activityEvents = fetchActivitySince(lastProcessedTimestamp);
+            CompletableFuture.allOf(nameChanges, groupMembers, activityEvents)
+                    .whenComplete((ignored, throwable) -> logger.info("Fetched the WOM group in {} ms",
+                            (System.nanoTime() - started) / 1_000_000));
+
+            // Apply name changes from WOM API
+            checkAndUpdateNameChanges(nameChanges);
+
+            List<Member> members = groupMembers.join();
 
             try (Connection connection = connect()) {
-                for (Member member : members) {
-                    // Check and update rank if necessary
-                    checkAndUpdateRank(connection, member);
-                }
+                // Only sync the members that changed since the last run, with a periodic full pass as a safety net
+                syncChangedMembers(connection, members);
 
                 // Handle members who have left the group or joined the group
-                updateMembersBasedOnActivity(connection);
+                updateMembersBasedOnActivity(connection, lastProcessedTimestamp, activityEvents);
 
             } catch (SQLException e) {
                 logger.error("Error updating members in database", e);
@@ -90,14 +116,14 @@ public class WOMGroupUpdater {
         }
     }
 
-    private void checkAndUpdateNameChanges() {
+    private void checkAndUpdateNameChanges(CompletableFuture<List<WomJsonDecoder.NameChange>> nameChangesFetch) {
         try {
-            JsonNode nameChanges = getNameChanges("/name-changes");
+            List<WomJsonDecoder.NameChange> nameChanges = nameChangesFetch.join();
 
             try (Connection connection = connect()) {
-                for (JsonNode nameChange : nameChanges) {
-                    String oldName = nameChange.get("oldName").asText();
-                    String newName = nameChange.get("newName").asText();
+                for (WomJsonDecoder.NameChange nameChange : nameChanges) {
+                    String oldName = nameChange.getOldName();
+                    String newName = nameChange.getNewName();
 
                     // Store the name change in the database
                     storeNameChange(connection, oldName, newName);
@@ -150,158 +176,328 @@ public class WOMGroupUpdater {
             stmt.setString(2, oldName);
             int rowsUpdated = stmt.executeUpdate();
             if (rowsUpdated > 0) {
+                DiscordUserRepository.invalidate(oldName);
+                DiscordUserRepository.invalidate(newName);
+                RankEvaluationQueue.enqueue(oldName, newName);
                 logger.info("Updated username from {} to {}", oldName, newName);
             }
         }
     }
 
-    private void checkAndUpdateRank(Connection connection, Member member) throws SQLException {
-        String discordUid = findDiscordUidByCharacterName(connection, member.getUsername());
-        if (discordUid == null) {
-            return; // Skip if no Discord UID found
+    /**
+     * Compares the WOM group with the membership snapshot of the previous run and only syncs the members that were
+     * added or whose name, role or updatedAt changed. Every {@code WOM_FULL_SYNC_EVERY} runs (and whenever there is no
+     * snapshot yet) all members are synced, which picks up accounts that were linked in the meantime.
+     */
+    private void syncChangedMembers(Connection connection, List<Member> members) throws SQLException {
+        if (members.isEmpty()) {
+            // An empty group means the payload couldn't be parsed, don't wipe the snapshot over it
+            logger.warn("WOM group payload contained no members, skipping the sync.");
+            return;
         }
+        long started = System.nanoTime();
+        Map<Integer, Member> snapshot = loadMembershipSnapshot(connection);
+
+        List<Member> added = new ArrayList<>();
+        List<Member> changed = new ArrayList<>();
+        int skipped = 0;
+        for (Member member : members) {
+            Member previous = snapshot.remove(member.getWOMId());
+            if (previous == null) {
+                added.add(member);
+            } else if (!member.getUsername().equals(previous.getUsername())
+                    || !Objects.equals(roleOf(member), roleOf(previous))
+                    || !Objects.equals(member.getRankObtainedTimestamp(), previous.getRankObtainedTimestamp())) {
+                changed.add(member);
+            } else {
+                skipped++;
+            }
+        }
+        // Whatever is left in the snapshot is no longer in the group, the activity feed handles their removal
+        Set<Integer> removed = snapshot.keySet();
 
-        // Check if this rank is a temporary rank
-        boolean isTemporaryRank = isTemporaryRank(member.getTemporaryRank());
-        String currentRank = findCurrentRank(connection, discordUid);
+        boolean fullSync = added.size() == members.size() || ++runsSinceFullSync >= FULL_SYNC_EVERY;
+        List<Member> toSync = new ArrayList<>(added);
+        toSync.addAll(changed);
+        if (fullSync) {
+            runsSinceFullSync = 0;
+            syncMemberRanks(connection, members);
+        } else if (!toSync.isEmpty()) {
+            syncMemberRanks(connection, toSync);
+        }
 
-        if (currentRank != null && !currentRank.equalsIgnoreCase(member.getRank()) && !isTemporaryRank(member.getRank())) {
-            if (isTemporaryRank) {
-                // If it's a temporary rank, update the temporary ranks table and skip normal rank update
-                updateTemporaryRankInDatabase(connection, discordUid, member.getTemporaryRank());
-            } else {
-                // Update the rank in the discord_users table
-                updateRankInDatabase(connection, discordUid, member.getRank());
+        // Written after the sync, so members whose sync failed are picked up again by the next run
+        saveMembershipSnapshot(connection, toSync, removed);
 
-                // Update the Discord roles
-                updateDiscordRoles(discordUid, member.getRank());
+        logger.info("WOM group sync{}: {} skipped, {} changed, {} added, {} removed in {} ms.",
+                fullSync ? " (full)" : "", skipped, changed.size(), added.size(), removed.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static String roleOf(Member member) {
+        return member.getRank() != null ? member.getRank() : member.getTemporaryRank();
+    }
+
+    private Map<Integer, Member> loadMembershipSnapshot(Connection connection) throws SQLException {
+        Map<Integer, Member> snapshot = new HashMap<>();
+        String query = "SELECT WOM_id, username, role, updated_at FROM wom_membership_snapshot";
+        try (PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String role = rs.getString("role");
+                boolean temporary = isTemporaryRank(role);
+                snapshot.put(rs.getInt("WOM_id"), new Member(rs.getInt("WOM_id"), rs.getString("username"),
+                        temporary ? null : role, rs.getTimestamp("updated_at"), null, temporary ? role : null));
             }
         }
+        return snapshot;
+    }
 
-        // Continue with the existing database updates
-        if (hasRankChanged(member)) {
-            updateMemberRank(connection, member);
-            logRankHistory(connection, member);
+    private void saveMembershipSnapshot(Connection connection, List<Member> upserts, Collection<Integer> removals) throws SQLException {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        connection.setAutoCommit(false);
+        try {
+            String upsertSql = "INSERT INTO wom_membership_snapshot (WOM_id, username, role, updated_at) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE username = VALUES(username), role = VALUES(role), updated_at = VALUES(updated_at)";
+            try (PreparedStatement stmt = connection.prepareStatement(upsertSql)) {
+                for (Member member : upserts) {
+                    stmt.setInt(1, member.getWOMId());
+                    stmt.setString(2, member.getUsername());
+                    stmt.setString(3, roleOf(member));
+                    stmt.setTimestamp(4, member.getRankObtainedTimestamp());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM wom_membership_snapshot WHERE WOM_id = ?")) {
+                for (Integer womId : removals) {
+                    stmt.setInt(1, womId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Applies the ranks from the WOM group to discord_users, temporary_ranks, members and rank_history. The current
+     * state is loaded with one query per table, the changes are worked out in memory and written as batches in a
+     * single transaction. Discord roles are only touched once that transaction has committed.
+     */
+    private void syncMemberRanks(Connection connection, List<Member> members) throws SQLException {
+        Map<String, DiscordUser> linkedUsers = new HashMap<>();
+        for (DiscordUser linkedUser : DiscordUserRepository.getAll()) {
+            if (linkedUser.getCharacterName() != null) {
+                linkedUsers.put(linkedUser.getCharacterName().toLowerCase(Locale.ROOT), linkedUser);
+            }
+        }
+        Map<Integer, String> memberRanks = loadMemberRanks(connection);
+
+        Map<Long, String> discordRankChanges = new LinkedHashMap<>();
+        Map<Long, String> temporaryRankChanges = new LinkedHashMap<>();
+        List<Member> memberRankChanges = new ArrayList<>();
+        for (Member member : members) {
+            DiscordUser linkedUser = linkedUsers.get(member.getUsername().toLowerCase(Locale.ROOT));
+            if (linkedUser == null) {
+                continue; // Skip if no Discord UID found
+            }
+
+            // Check if this rank is a temporary rank
+            boolean isTemporaryRank = isTemporaryRank(member.getTemporaryRank());
+            String currentRank = linkedUser.getRank();
+            if (currentRank != null && !currentRank.equalsIgnoreCase(member.getRank()) && !isTemporaryRank(member.getRank())) {
+                if (isTemporaryRank) {
+                    // A temporary rank goes to the temporary ranks table and skips the normal rank update
+                    temporaryRankChanges.put(linkedUser.getDiscordUid(), member.getTemporaryRank());
+                } else {
+                    discordRankChanges.put(linkedUser.getDiscordUid(), member.getRank());
+                }
+            }
+
+            String memberRank = memberRanks.get(member.getWOMId());
+            if (memberRanks.containsKey(member.getWOMId()) && !isTemporaryRank
+                    && member.getRank() != null && !member.getRank().equalsIgnoreCase(memberRank)) {
+                memberRankChanges.add(member);
+            }
+        }
+
+        // The temporary rank roles are kept, so their ranks are needed as well. They are loaded before anything is
+        // written, so a failure leaves the whole sync to the next run.
+        Map<Long, String> temporaryRanks = discordRankChanges.isEmpty()
+                ? Collections.emptyMap() : DiscordUserRepository.getTemporaryRanks();
+
+        connection.setAutoCommit(false);
+        try {
+            updateRanksInDatabase(connection, discordRankChanges);
+            updateTemporaryRanksInDatabase(connection, temporaryRankChanges);
+            updateMemberRanks(connection, memberRankChanges);
+            logRankHistory(connection, memberRankChanges);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
         }
+
+        if (!discordRankChanges.isEmpty()) {
+            discordRankChanges.forEach((discordUid, rank) ->
+                    updateDiscordRoles(String.valueOf(discordUid), rank, temporaryRanks.get(discordUid)));
+        }
+        // A new rank means a new next rank to check the requirements of
+        memberRankChanges.forEach(member -> RankEvaluationQueue.enqueue(member.getUsername()));
+        logger.info("Synced {} group members: {} Discord ranks, {} temporary ranks and {} member ranks changed.",
+                members.size(), discordRankChanges.size(), temporaryRankChanges.size(), memberRankChanges.size());
+    }
+
+    private Map<Integer, String> loadMemberRanks(Connection connection) throws SQLException {
+        Map<Integer, String> ranks = new HashMap<>();
+        String query = "SELECT WOM_id, `rank` FROM members";
+        try (PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ranks.put(rs.getInt("WOM_id"), rs.getString("rank"));
+            }
+        }
+        return ranks;
     }
 
-    private void updateMembersBasedOnActivity(Connection connection) {
+    private void updateMembersBasedOnActivity(Connection connection, Timestamp lastProcessedTimestamp,
+                                              CompletableFuture<ActivityFetch> activityFetch) {
         try {
-            // Retrieve the last processed "updatedAt" timestamp
-            Timestamp lastProcessedTimestamp = getLastProcessedActivityTime(connection);
+            // Every group activity event since the watermark from Wise Old Man API
+            ActivityFetch fetch = activityFetch.join();
+            List<WomJsonDecoder.ActivityEvent> activityEvents = fetch.events;
 
-            // Fetch group activity from Wise Old Man API
-            JsonNode activityEvents = getGroupActivity("/activity");
-
-            // Ensure activityEvents is an array
-            if (activityEvents.isArray()) {
-                // Sort the activity list based on the createdAt timestamp in ascending order
-                List<JsonNode> activityList = StreamSupport.stream(activityEvents.spliterator(), false)
-                        .sorted(Comparator.comparing(event -> {
-                            String createdAtStr = event.get("createdAt").asText();
-                            return Timestamp.valueOf(createdAtStr.replace("T", " ").replace("Z", ""));
-                        }))
-                        .collect(Collectors.toList());
-
-                for (JsonNode event : activityList) {
-                    logger.info("Processing event: {}", event.toString());
-
-                    // Extract event details
-                    JsonNode playerNode = event.get("player");
-                    if (playerNode == null) {
-                        logger.warn("Skipping event due to missing player node: {}", event.toString());
-                        continue;
-                    }
+            // Sort the activity list based on the createdAt timestamp in ascending order
+            activityEvents.sort(Comparator.comparing(WomJsonDecoder.ActivityEvent::getCreatedAt));
 
-                    String updatedAtStr = event.get("createdAt").asText();
-                    Timestamp updatedAt = Timestamp.valueOf(updatedAtStr.replace("T", " ").replace("Z", ""));
-                    Thread.sleep(250);
+            // Events at the watermark, or seen twice because the feed moved while paging, are only applied once
+            Set<String> processedKeys = loadProcessedActivityKeys(connection, lastProcessedTimestamp);
+            int applied = 0;
 
-                    // Handle the case where lastProcessedTimestamp is null
-                    if (lastProcessedTimestamp == null) {
-                        // If we don't have a last processed timestamp, initialize it to a default value
-                        lastProcessedTimestamp = Timestamp.valueOf("1970-01-01 00:00:00");
-                    }
+            for (WomJsonDecoder.ActivityEvent event : activityEvents) {
+                logger.info("Processing event: {}", event);
 
-                    // If the event is older than the last processed timestamp, skip it
-                    if (updatedAt.before(lastProcessedTimestamp)) {
-                        continue;
-                    }
+                Timestamp updatedAt = event.getCreatedAt();
 
-                    String role = null;
-                    String tempRole = null;
-                    String username = playerNode.get("username").asText();
-                    int womId = playerNode.get("id").asInt();
-                    String eventType = event.get("type").asText();
+                // If the event is older than the last processed timestamp, skip it
+                if (updatedAt.before(lastProcessedTimestamp)) {
+                    continue;
+                }
 
-                    if (isTemporaryRank(event.get("role").asText())) {
-                        tempRole = event.get("role").asText();
-                    } else {
-                        role = event.get("role").asText();
-                    }
+                if (!processedKeys.add(event.getIdempotencyKey())) {
+                    continue;
+                }
 
-                    Timestamp joinDate = event.has("createdAt") ?
-                            Timestamp.valueOf(event.get("createdAt").asText().replace("T", " ").replace("Z", "")) :
-                            null;
-
-                    // Create Member object
-                    Member member = new Member(womId, username, role, updatedAt, joinDate, tempRole);
-
-                    // Handle different event types
-                    switch (eventType) {
-                        case "left":
-                            handleMemberLeft(connection, member);
-                            break;
-                        case "joined":
-                            handleMemberJoined(connection, member);
-                            break;
-                        case "changed_role":
-                            handleMemberRoleChange(connection, member);
-                            break;
-                        default:
-                            logger.warn("Unhandled event type: {} for user: {}", eventType, username);
-                            break;
-                    }
+                String role = null;
+                String tempRole = null;
+                String username = event.getUsername();
+                int womId = event.getWomId();
+                String eventType = event.getType();
 
-                    // Update the last processed timestamp
-                    updateLastProcessedActivityTime(connection, updatedAt);
+                if (isTemporaryRank(event.getRole())) {
+                    tempRole = event.getRole();
+                } else {
+                    role = event.getRole();
                 }
 
-                // Handle removing expired temporary ranks
-                removeExpiredTemporaryRanks(connection);
-            } else {
-                logger.warn("Activity events are not in an array format: {}", activityEvents.toString());
+                Timestamp joinDate = event.getCreatedAt();
+
+                // Create Member object
+                Member member = new Member(womId, username, role, updatedAt, joinDate, tempRole);
+
+                // Handle different event types
+                switch (eventType) {
+                    case "left":
+                        handleMemberLeft(connection, member);
+                        RankEvaluationQueue.enqueue(username);
+                        break;
+                    case "joined":
+                        handleMemberJoined(connection, member);
+                        RankEvaluationQueue.enqueue(username);
+                        break;
+                    case "changed_role":
+                        handleMemberRoleChange(connection, member);
+                        RankEvaluationQueue.enqueue(username);
+                        break;
+                    default:
+                        logger.warn("Unhandled event type: {} for user: {}", eventType, username);
+                        break;
+                }
+
+                // Record the event and update the last processed timestamp
+                markActivityProcessed(connection, event);
+                if (fetch.complete) {
+                    updateLastProcessedActivityTime(connection, updatedAt);
+                }
+                applied++;
+            }
+            logger.info("Applied {} of {} fetched activity events.", applied, activityEvents.size());
+            if (!fetch.complete) {
+                // Moving it past the events that weren't fetched would lose them. The ones applied are recorded, so
+                // the next run skips them.
+                logger.warn("Kept the activity watermark at {}, the feed wasn't read back that far.", lastProcessedTimestamp);
             }
+
+            // Handle removing expired temporary ranks
+            removeExpiredTemporaryRanks(connection);
         } catch (Exception e) {
             logger.error("Error fetching group activity from Wise Old Man API", e);
         }
     }
 
-    private static JsonNode getGroupActivity(String x) throws IOException {
-        String urlString = "https://api.wiseoldman.net/v2/groups/" + GROUP_ID + x +"?limit=50";
-        URL url = new URL(urlString);
-        HttpsURLConnection conn = (HttpsURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("x-api-key", WOM_API_KEY);
-        conn.setRequestProperty("User-Agent", DISCORD_NAME);
+    private static final class ActivityFetch {
+        final List<WomJsonDecoder.ActivityEvent> events = new ArrayList<>();
+        // False if paging stopped at WOM_ACTIVITY_MAX_PAGES before reaching the watermark
+        boolean complete = true;
+    }
 
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder content = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
-        }
-        in.close();
+    /**
+     * Pages back through the group activity feed, newest first, until a page reaches the watermark or the feed ends.
+     * Events that land while paging shift the pages, which only causes duplicates, never gaps.
+     */
+    private static CompletableFuture<ActivityFetch> fetchActivitySince(Timestamp watermark) {
+        return fetchActivityPages(watermark, 0, new ActivityFetch());
+    }
+
+    private static CompletableFuture<ActivityFetch> fetchActivityPages(Timestamp watermark, int page, ActivityFetch fetch) {
+        return getGroupActivity("/activity", page * ACTIVITY_PAGE_SIZE).thenCompose(batch -> {
+            fetch.events.addAll(batch);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.readTree(content.toString());
+            boolean reachedWatermark = batch.stream().anyMatch(event -> event.getCreatedAt().before(watermark));
+            if (batch.size() < ACTIVITY_PAGE_SIZE || reachedWatermark) {
+                return CompletableFuture.completedFuture(fetch);
+            }
+            if (page + 1 >= ACTIVITY_MAX_PAGES) {
+                logger.warn("Stopped paging the WOM activity feed after {} pages without reaching {}, older events were not applied. "
+                        + "Raise WOM_ACTIVITY_MAX_PAGES or run /validate_group to catch up.", ACTIVITY_MAX_PAGES, watermark);
+                fetch.complete = false;
+                return CompletableFuture.completedFuture(fetch);
+            }
+            return fetchActivityPages(watermark, page + 1, fetch);
+        });
+    }
+
+    private static CompletableFuture<List<WomJsonDecoder.ActivityEvent>> getGroupActivity(String x, int offset) {
+        return BotHttpClient.getAsync(WOM_GROUP_URL + x + "?limit=" + ACTIVITY_PAGE_SIZE + "&offset=" + offset, WomJsonDecoder::decodeActivity,
+                "x-api-key", WOM_API_KEY,
+                "User-Agent", DISCORD_NAME);
     }
 
-    private void handleMemberLeft(Connection connection, Member member) throws SQLException, InterruptedException {
+    private void handleMemberLeft(Connection connection, Member member) throws SQLException {
         String rank = getMemberRank(connection, member.getUsername());
         if (rank != null) {
             removeMemberFromDatabase(connection, member.getUsername());
-            removeRolesFromDiscord(member.getUsername(), rank);
+            removeRolesFromDiscord(member.getUsername());
         }
     }
 
@@ -315,13 +511,12 @@ public class WOMGroupUpdater {
         if (isTemporaryRank(member.getTemporaryRank())) {
             logger.info("Temporary rank identified for user: {} rank: {}", member.getUsername(), member.getTemporaryRank());
         }
-        // If the member no longer has a temporary rank, remove it
         if (member.getRank() != null) {
-            updateRoleForMember(connection, member.getUsername(), member.getRank(), null);
-            if (member.getTemporaryRank()==null) {
+            // If the member no longer has a temporary rank, remove it
+            if (member.getTemporaryRank() == null) {
                 removeTemporaryRank(connection, member.getUsername());
-                updateRoleForMember(connection, member.getUsername(), member.getRank(), null);
             }
+            updateRoleForMember(connection, member.getUsername(), member.getRank(), member.getTemporaryRank());
         } else {
             if (member.getTemporaryRank() != null) {
                 updateRoleForMember(connection, member.getUsername(), null, member.getTemporaryRank());
@@ -354,37 +549,28 @@ public class WOMGroupUpdater {
 
     private void updateRoleForMember(Connection connection, String username, String newRole, String tempRank) throws SQLException {
         // Fetch the discord_uid associated with the username
-        String discordUid = findDiscordUidByCharacterName(connection, username);
+        String discordUid = findDiscordUidByCharacterName(username);
         if (discordUid == null) {
             logger.warn("Discord UID not found for username: {}", username);
             return;
         }
-        if (tempRank != null) {updateDiscordRoles(discordUid, tempRank); return;}
-        // Update the rank in the database
-        updateRankInDatabase(connection, discordUid, newRole);
+        // Update the rank in the database, a temporary rank alone leaves it as it is
+        if (newRole != null) {
+            updateRankInDatabase(connection, discordUid, newRole);
+        }
+        // Recorded so /verify_all_users keeps the role and it expires like the ones from the group sync
+        if (tempRank != null) {
+            updateTemporaryRanksInDatabase(connection, Collections.singletonMap(Long.parseLong(discordUid), tempRank));
+        }
 
         // Update the roles on Discord
-        updateDiscordRoles(discordUid, newRole);
+        updateDiscordRoles(discordUid, newRole, tempRank);
     }
 
-    private static JsonNode getNameChanges(String x) throws IOException {
-        String urlString = "https://api.wiseoldman.net/v2/groups/" + GROUP_ID + x;
-        URL url = new URL(urlString);
-        HttpsURLConnection conn = (HttpsURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("x-api-key", WOM_API_KEY);
-        conn.setRequestProperty("User-Agent", DISCORD_NAME);
-
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder content = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
-        }
-        in.close();
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.readTree(content.toString());
+    private static CompletableFuture<List<WomJsonDecoder.NameChange>> getNameChanges(String x) {
+        return BotHttpClient.getAsync(WOM_GROUP_URL + x, WomJsonDecoder::decodeNameChanges,
+                "x-api-key", WOM_API_KEY,
+                "User-Agent", DISCORD_NAME);
     }
 
     private boolean isMemberInDatabase(Connection connection, String username) throws SQLException {
@@ -412,30 +598,9 @@ public class WOMGroupUpdater {
         }
     }
 
-    private String findDiscordUidByCharacterName(Connection connection, String characterName) throws SQLException {
-        String query = "SELECT discord_uid FROM discord_users WHERE character_name = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, characterName);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("discord_uid");
-                }
-            }
-        }
-        return null;
-    }
-
-    private String findCurrentRank(Connection connection, String discordUid) throws SQLException {
-        String query = "SELECT `rank` FROM discord_users WHERE discord_uid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, discordUid);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("rank");
-                }
-            }
-        }
-        return null;
+    private String findDiscordUidByCharacterName(String characterName) {
+        Long discordUid = DiscordUserRepository.findDiscordUid(characterName);
+        return discordUid != null ? String.valueOf(discordUid) : null;
     }
 
     private void updateRankInDatabase(Connection connection, String discordUid, String newRank) throws SQLException {
@@ -448,18 +613,40 @@ public class WOMGroupUpdater {
         }
     }
 
-    private void updateTemporaryRankInDatabase(Connection connection, String discordUid, String newRank) throws SQLException {
+    private void updateRanksInDatabase(Connection connection, Map<Long, String> newRanks) throws SQLException {
+        if (newRanks.isEmpty()) {
+            return;
+        }
+        String updateSql = "UPDATE discord_users SET `rank` = ? WHERE discord_uid = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(updateSql)) {
+            for (Map.Entry<Long, String> entry : newRanks.entrySet()) {
+                stmt.setString(1, entry.getValue());
+                stmt.setLong(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            logger.info("Updated the rank of {} Discord users.", newRanks.size());
+        }
+    }
+
+    private void updateTemporaryRanksInDatabase(Connection connection, Map<Long, String> newRanks) throws SQLException {
+        if (newRanks.isEmpty()) {
+            return;
+        }
         String insertSql = "INSERT INTO temporary_ranks (discord_uid, `rank`) VALUES (?, ?) " +
                 "ON DUPLICATE KEY UPDATE `rank` = VALUES(rank), added_date = CURRENT_TIMESTAMP";
         try (PreparedStatement stmt = connection.prepareStatement(insertSql)) {
-            stmt.setString(1, discordUid);
-            stmt.setString(2, newRank);
-            stmt.executeUpdate();
-            logger.info("Updated temporary rank to {} for Discord UID: {}", newRank, discordUid);
+            for (Map.Entry<Long, String> entry : newRanks.entrySet()) {
+                stmt.setLong(1, entry.getKey());
+                stmt.setString(2, entry.getValue());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            logger.info("Updated the temporary rank of {} Discord users.", newRanks.size());
         }
     }
 
-    private void updateDiscordRoles(String discordUid, String newRank) {
+    private void updateDiscordRoles(String discordUid, String newRank, String temporaryRank) {
         Server server = api.getServerById(Long.parseLong(dotenv.get("GUILD_ID"))).orElse(null);
         if (server == null) {
             logger.error("Server not found!");
@@ -468,72 +655,46 @@ public class WOMGroupUpdater {
 
         Optional<User> userOptional = server.getMemberById(discordUid);
         if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
-            // Remove previous roles related to ranks
-            user.getRoles(server).forEach(role -> {
-                if (isRankRole(role.getName()) || isTemporaryRank(role.getName())) {
-                    user.removeRole(role).exceptionally(ExceptionLogger.get());
-                    logger.info("Removed role: {} from user: {}", role.getName(), user.getName());
-                }
-            });
-
-            // Assign the new role based on the rank
-            Optional<org.javacord.api.entity.permission.Role> newRole = server.getRolesByNameIgnoreCase(newRank).stream().findFirst();
-            newRole.ifPresent(role -> {
-                user.addRole(role).exceptionally(ExceptionLogger.get());
-                logger.info("Assigned new role: {} to user: {}", role.getName(), user.getName());
-            });
+            // Swaps the old rank roles for the new ones in one update
+            RoleReconciler.reconcile(server, userOptional.get(), newRank, temporaryRank, DiscordMutationQueue.Priority.BACKGROUND)
+                    .exceptionally(ExceptionLogger.get());
         } else {
             logger.warn("User not found on the server: {}", discordUid);
         }
     }
 
-    private boolean hasRankChanged(Member member) {
-        try (Connection connection = connect()) {
-            String query = "SELECT `rank` FROM members WHERE WOM_id = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setInt(1, member.getWOMId());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        String currentRank = rs.getString("rank");
-                        if (isTemporaryRank(member.getTemporaryRank())){
-                            return false;
-                        }
-                        return !currentRank.equalsIgnoreCase(member.getRank());
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error checking if rank has changed for user: {}", member.getUsername(), e);
+    private void updateMemberRanks(Connection connection, List<Member> members) throws SQLException {
+        if (members.isEmpty()) {
+            return;
         }
-        return false;
-    }
-
-    private void updateMemberRank(Connection connection, Member member) throws SQLException {
         String sql = "UPDATE members SET `rank` = ?, last_rank_update = NOW() WHERE username = ? AND WOM_id = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, member.getRank());
-            stmt.setString(2, member.getUsername());
-            stmt.setInt(3, member.getWOMId());
-            int rowsUpdated = stmt.executeUpdate();
-            if (rowsUpdated > 0) {
-                logger.info("Successfully updated rank for user: {}", member.getUsername());
-            } else {
-                logger.warn("Failed to update rank for user: {}", member.getUsername());
+            for (Member member : members) {
+                stmt.setString(1, member.getRank());
+                stmt.setString(2, member.getUsername());
+                stmt.setInt(3, member.getWOMId());
+                stmt.addBatch();
             }
+            stmt.executeBatch();
+            logger.info("Updated the rank of {} members.", members.size());
         }
     }
 
-    private void logRankHistory(Connection connection, Member member) throws SQLException {
+    private void logRankHistory(Connection connection, List<Member> members) throws SQLException {
+        if (members.isEmpty()) {
+            return;
+        }
         String sql = "INSERT INTO rank_history (WOM_id, username, `rank`, rank_obtained_timestamp, rank_pulled_timestamp) " +
                 "VALUES (?, ?, ?, ?, NOW())";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, member.getWOMId());
-            stmt.setString(2, member.getUsername());
-            stmt.setString(3, member.getRank());
-            stmt.setTimestamp(4, member.getRankObtainedTimestamp());
-            stmt.executeUpdate();
+            for (Member member : members) {
+                stmt.setInt(1, member.getWOMId());
+                stmt.setString(2, member.getUsername());
+                stmt.setString(3, member.getRank());
+                stmt.setTimestamp(4, member.getRankObtainedTimestamp());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
         }
     }
 
@@ -550,7 +711,7 @@ public class WOMGroupUpdater {
         }
     }
 
-    private void removeRolesFromDiscord(String username, String rank) throws InterruptedException {
+    private void removeRolesFromDiscord(String username) {
         Server server = api.getServerById(Long.parseLong(dotenv.get("GUILD_ID"))).orElse(null);
         if (server == null) {
             logger.error("Server not found!");
@@ -559,18 +720,9 @@ public class WOMGroupUpdater {
 
         Optional<User> userOptional = server.getMembersByName(username).stream().findFirst();
         if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
-            Thread.sleep(250);
-            // Remove the rank role
-            Optional<org.javacord.api.entity.permission.Role> rankRole = server.getRolesByNameIgnoreCase(rank).stream().findFirst();
-            rankRole.ifPresent(role -> user.removeRole(role).exceptionally(ExceptionLogger.get()));
-
-            Thread.sleep(250);
-            // Remove the "Green Party Hats" role
-            Optional<org.javacord.api.entity.permission.Role> greenPartyHatsRole = server.getRolesByNameIgnoreCase("Green Party Hats").stream().findFirst();
-            greenPartyHatsRole.ifPresent(role -> user.removeRole(role).exceptionally(ExceptionLogger.get()));
-
+            // Remove the rank, temporary rank and "Green Party Hats" roles
+            RoleReconciler.removeClanRoles(server, userOptional.get(), DiscordMutationQueue.Priority.BACKGROUND)
+                    .exceptionally(ExceptionLogger.get());
             logger.info("Removed roles from user: {}", username);
         } else {
             logger.warn("User not found on the server: {}", username);
@@ -640,38 +792,15 @@ public class WOMGroupUpdater {
 
         Optional<User> userOptional = server.getMemberById(discordUid);
         if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
-            // Find the role on the server that matches the temporary rank
-            Optional<org.javacord.api.entity.permission.Role> roleToRemove = server.getRolesByNameIgnoreCase(rank).stream().findFirst();
-            if (roleToRemove.isPresent()) {
-                user.removeRole(roleToRemove.get()).exceptionally(ExceptionLogger.get());
-                logger.info("Removed temporary role: {} from user: {}", roleToRemove.get().getName(), user.getName());
-            } else {
-                logger.warn("Role not found on the server for rank: {}", rank);
-            }
+            // Merged into any role update still waiting for the member, and takes away only this role
+            RoleReconciler.removeTemporaryRole(server, userOptional.get(), rank, DiscordMutationQueue.Priority.BACKGROUND)
+                    .exceptionally(ExceptionLogger.get());
+            logger.info("Removed temporary role: {} from user: {}", rank, userOptional.get().getName());
         } else {
             logger.warn("User not found on the server for Discord UID: {}", discordUid);
         }
     }
 
-    private boolean isRankRole(String roleName) {
-        try (Connection connection = connect()) {
-            String query = "SELECT COUNT(*) FROM config WHERE `rank` = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, roleName);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt(1) > 0;
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error checking if role is a rank role: {}", roleName, e);
-        }
-        return false;
-    }
-
     private String getMemberRank(Connection connection, String username) throws SQLException {
         String query = "SELECT `rank` FROM members WHERE username = ?";
         try (PreparedStatement stmt = connection.prepareStatement(query)) {
@@ -686,25 +815,22 @@ public class WOMGroupUpdater {
     }
 
     private boolean isTemporaryRank(String rank) {
-        // Here we check if the rank is in the list of known temporary ranks
-        String[] temporaryRanks = {"monarch", "competitor", "attacker", "enforcer", "defender", "ranger", "priest",
-                "magician", "runecrafter", "medic", "athlete", "herbologist", "thief", "crafter",
-                "fletcher", "miner", "smith", "fisher", "cook", "firemaker", "lumberjack", "slayer",
-                "farmer", "constructor", "hunter", "skiller"};
-
-        for (String tempRank : temporaryRanks) {
-            if (tempRank.equalsIgnoreCase(rank)) {
-                return true;
-            }
-        }
-        return false;
+        return RankLadder.isTemporaryRank(rank);
     }
 
     private Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return Database.getConnection();
     }
 
     // Methods to track and update the last processed activity timestamp
+    private Timestamp loadLastProcessedActivityTime() throws SQLException {
+        try (Connection connection = connect()) {
+            Timestamp lastProcessedTimestamp = getLastProcessedActivityTime(connection);
+            // If we don't have a last processed timestamp, initialize it to a default value
+            return lastProcessedTimestamp != null ? lastProcessedTimestamp : Timestamp.valueOf("1970-01-01 00:00:00");
+        }
+    }
+
     private Timestamp getLastProcessedActivityTime(Connection connection) throws SQLException {
         String query = "SELECT MAX(last_processed_at) FROM activity_log_tracker";
         try (PreparedStatement stmt = connection.prepareStatement(query)) {
@@ -717,6 +843,29 @@ public class WOMGroupUpdater {
         return Timestamp.valueOf("1970-01-01 00:00:00");
     }
 
+    private Set<String> loadProcessedActivityKeys(Connection connection, Timestamp since) throws SQLException {
+        Set<String> keys = new HashSet<>();
+        String query = "SELECT event_key FROM wom_activity_processed WHERE created_at >= ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setTimestamp(1, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getString(1));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private void markActivityProcessed(Connection connection, WomJsonDecoder.ActivityEvent event) throws SQLException {
+        String insertSql = "INSERT IGNORE INTO wom_activity_processed (event_key, created_at) VALUES (?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(insertSql)) {
+            stmt.setString(1, event.getIdempotencyKey());
+            stmt.setTimestamp(2, event.getCreatedAt());
+            stmt.executeUpdate();
+        }
+    }
+
     private void updateLastProcessedActivityTime(Connection connection, Timestamp lastProcessedAt) throws SQLException {
         String insertSql = "INSERT INTO activity_log_tracker (last_processed_at) VALUES (?) " +
                 "ON DUPLICATE KEY UPDATE last_processed_at = VALUES(last_processed_at)";
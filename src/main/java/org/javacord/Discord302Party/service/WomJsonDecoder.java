@@ -0,0 +1,276 @@
+package org.javacord.Discord302Party.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.Discord302Party.Member;
+import org.javacord.Discord302Party.database.RankLadder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes Wise Old Man responses token by token straight from the response stream. Only the fields the bot uses are
+ * read, everything else is skipped, so neither the response text nor a JsonNode tree of it is ever held in memory.
+ */
+public final class WomJsonDecoder {
+
+    private static final Logger logger = LogManager.getLogger(WomJsonDecoder.class);
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private WomJsonDecoder() {
+    }
+
+    /**
+     * A single event from the group's {@code /activity} endpoint.
+     */
+    public static final class ActivityEvent {
+
+        private final String type;
+        private final int womId;
+        private final String username;
+        private final String role;
+        private final Timestamp createdAt;
+
+        ActivityEvent(String type, int womId, String username, String role, Timestamp createdAt) {
+            this.type = type;
+            this.womId = womId;
+            this.username = username;
+            this.role = role;
+            this.createdAt = createdAt;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getWomId() {
+            return womId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public Timestamp getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * WOM activity events have no id of their own, the event is identified by what happened to whom and when.
+         */
+        public String getIdempotencyKey() {
+            return type + ":" + womId + ":" + role + ":" + createdAt.getTime();
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + username + " (" + womId + ") as " + role + " at " + createdAt;
+        }
+    }
+
+    /**
+     * A single entry from the group's {@code /name-changes} endpoint.
+     */
+    public static final class NameChange {
+
+        private final String oldName;
+        private final String newName;
+
+        NameChange(String oldName, String newName) {
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+
+        public String getOldName() {
+            return oldName;
+        }
+
+        public String getNewName() {
+            return newName;
+        }
+    }
+
+    /**
+     * Decodes the {@code memberships} of a group details response into members. Temporary roles are stored as the
+     * member's temporary rank, every other role as their rank.
+     */
+    public static List<Member> decodeGroupMembers(InputStream in) throws IOException {
+        List<Member> members = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("memberships") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Member member = readMembership(parser);
+                        if (member != null) {
+                            members.add(member);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Decodes a group activity response. Events without a player are skipped.
+     */
+    public static List<ActivityEvent> decodeActivity(InputStream in) throws IOException {
+        List<ActivityEvent> events = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String type = null;
+                String role = null;
+                Timestamp createdAt = null;
+                int womId = 0;
+                String username = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "type":
+                            type = parser.getValueAsString();
+                            break;
+                        case "role":
+                            role = parser.getValueAsString();
+                            break;
+                        case "createdAt":
+                            createdAt = parseTimestamp(parser.getValueAsString());
+                            break;
+                        case "player":
+                            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                    String playerField = parser.getCurrentName();
+                                    parser.nextToken();
+                                    if (playerField.equals("id")) {
+                                        womId = parser.getValueAsInt();
+                                    } else if (playerField.equals("username")) {
+                                        username = parser.getValueAsString();
+                                    } else {
+                                        parser.skipChildren();
+                                    }
+                                }
+                            }
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                }
+                if (username == null || type == null || createdAt == null) {
+                    logger.warn("Skipping activity event without a player, type or date: {} {} {}", type, username, createdAt);
+                    continue;
+                }
+                events.add(new ActivityEvent(type, womId, username, role, createdAt));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Decodes a group name changes response.
+     */
+    public static List<NameChange> decodeNameChanges(InputStream in) throws IOException {
+        List<NameChange> nameChanges = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String oldName = null;
+                String newName = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (field.equals("oldName")) {
+                        oldName = parser.getValueAsString();
+                    } else if (field.equals("newName")) {
+                        newName = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (oldName != null && newName != null) {
+                    nameChanges.add(new NameChange(oldName, newName));
+                }
+            }
+        }
+        return nameChanges;
+    }
+
+    /**
+     * Parses the ISO-8601 UTC dates WOM returns, e.g. {@code 2024-05-01T12:30:00.000Z}.
+     */
+    static Timestamp parseTimestamp(String value) {
+        return value == null ? null : Timestamp.valueOf(value.replace("T", " ").replace("Z", ""));
+    }
+
+    // Reads one membership object, the parser is positioned on its START_OBJECT
+    private static Member readMembership(JsonParser parser) throws IOException {
+        String role = null;
+        Timestamp updatedAt = null;
+        Timestamp createdAt = null;
+        int womId = 0;
+        String username = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "role":
+                    role = parser.getValueAsString();
+                    break;
+                case "updatedAt":
+                    updatedAt = parseTimestamp(parser.getValueAsString());
+                    break;
+                case "createdAt":
+                    createdAt = parseTimestamp(parser.getValueAsString());
+                    break;
+                case "player":
+                    if (parser.currentToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String playerField = parser.getCurrentName();
+                            parser.nextToken();
+                            if (playerField.equals("id")) {
+                                womId = parser.getValueAsInt();
+                            } else if (playerField.equals("username")) {
+                                username = parser.getValueAsString();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (username == null) {
+            logger.warn("Skipping membership without a player");
+            return null;
+        }
+        if (RankLadder.isTemporaryRank(role)) {
+            return new Member(womId, username, null, updatedAt, createdAt, role);
+        }
+        return new Member(womId, username, role, updatedAt, createdAt, null);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected WOM response, expected " + expected + " but got " + actual);
+        }
+    }
+}
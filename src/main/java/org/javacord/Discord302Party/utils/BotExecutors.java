@@ -0,0 +1,215 @@
+package org.javacord.Discord302Party.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.api.entity.message.MessageFlag;
+import org.javacord.api.interaction.InteractionBase;
+import org.javacord.api.util.logging.ExceptionLogger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The bot's thread pools, one per kind of work, so a burst of one kind can't starve the others
+ * (or the shared ForkJoinPool that CompletableFuture.runAsync uses by default).
+ * <ul>
+ *     <li>{@link #interactive()}: database work behind slash commands, context menus and reactions.</li>
+ *     <li>{@link #background()}: long running jobs such as the WOM sync, rank validation and /verify_all_users.</li>
+ *     <li>{@link #http()}: calls to Wise Old Man and GE Tracker, and decoding their responses.</li>
+ *     <li>{@link #httpIo()}: the HTTP client's own callbacks and rate limit wake-ups. Nothing on it blocks, so
+ *     commands blocking on a response from an {@link #http()} thread can't starve the client.</li>
+ * </ul>
+ * Every pool has a bounded queue. Work that doesn't fit is rejected with a {@link RejectedExecutionException}
+ * instead of piling up, and counted in the pool's metrics. Commands submit through {@link #runCommand} or
+ * {@link #runFollowup}, which tell the user the bot is busy when that happens.
+ */
+public final class BotExecutors {
+
+    private static final Logger logger = LogManager.getLogger(BotExecutors.class);
+    private static final Dotenv dotenv = Dotenv.load();
+
+    private static final String BUSY_MESSAGE = "The bot is busy right now, please try again in a moment.";
+
+    private static final InstrumentedExecutor INTERACTIVE = create("interactive-db",
+            Integer.parseInt(dotenv.get("EXECUTOR_INTERACTIVE_THREADS", "8")),
+            Integer.parseInt(dotenv.get("EXECUTOR_INTERACTIVE_QUEUE", "100")));
+    private static final InstrumentedExecutor BACKGROUND = create("background-sync",
+            Integer.parseInt(dotenv.get("EXECUTOR_BACKGROUND_THREADS", "2")),
+            Integer.parseInt(dotenv.get("EXECUTOR_BACKGROUND_QUEUE", "10")));
+    private static final InstrumentedExecutor HTTP = create("outbound-http",
+            Integer.parseInt(dotenv.get("EXECUTOR_HTTP_THREADS", "4")),
+            Integer.parseInt(dotenv.get("EXECUTOR_HTTP_QUEUE", "50")));
+    private static final InstrumentedExecutor HTTP_IO = create("http-io",
+            Integer.parseInt(dotenv.get("EXECUTOR_HTTP_IO_THREADS", "2")),
+            Integer.parseInt(dotenv.get("EXECUTOR_HTTP_IO_QUEUE", "1000")));
+
+    private BotExecutors() {
+    }
+
+    public static ExecutorService interactive() {
+        return INTERACTIVE;
+    }
+
+    public static ExecutorService background() {
+        return BACKGROUND;
+    }
+
+    public static ExecutorService http() {
+        return HTTP;
+    }
+
+    public static ExecutorService httpIo() {
+        return HTTP_IO;
+    }
+
+    /**
+     * Runs the work of a command that hasn't answered its interaction yet. If the pool is saturated, the answer says
+     * the bot is busy.
+     */
+    public static void runCommand(ExecutorService executor, InteractionBase interaction, Runnable work) {
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            interaction.createImmediateResponder()
+                    .setContent(BUSY_MESSAGE)
+                    .setFlags(MessageFlag.EPHEMERAL)
+                    .respond()
+                    .exceptionally(ExceptionLogger.get());
+        }
+    }
+
+    /**
+     * Runs the work of a command that already answered its interaction, e.g. with "Processing...". If the pool is
+     * saturated, a follow-up says the bot is busy.
+     */
+    public static void runFollowup(ExecutorService executor, InteractionBase interaction, Runnable work) {
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            interaction.createFollowupMessageBuilder()
+                    .setContent(BUSY_MESSAGE)
+                    .setFlags(MessageFlag.EPHEMERAL)
+                    .send()
+                    .exceptionally(ExceptionLogger.get());
+        }
+    }
+
+    /**
+     * Counts a failure the work caught itself, e.g. to tell the user, so the pool never saw it.
+     */
+    public static void recordFailure(ExecutorService executor) {
+        if (executor instanceof InstrumentedExecutor) {
+            ((InstrumentedExecutor) executor).failed.increment();
+        }
+    }
+
+    /**
+     * Stops accepting work and waits briefly for running tasks to finish.
+     */
+    public static void shutdown() {
+        for (InstrumentedExecutor executor : new InstrumentedExecutor[]{INTERACTIVE, BACKGROUND, HTTP, HTTP_IO}) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static InstrumentedExecutor create(String name, int threads, int queueCapacity) {
+        InstrumentedExecutor executor = new InstrumentedExecutor(name, threads, queueCapacity);
+        MetricsReporter.register("executor-" + name, executor::describe);
+        return executor;
+    }
+
+    /**
+     * Fixed size pool with a bounded queue that records queue wait, run time and rejections.
+     */
+    private static final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+        private final String name;
+        private final int queueCapacity;
+        private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder runNanos = new LongAdder();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+        private final AtomicInteger maxQueued = new AtomicInteger();
+
+        InstrumentedExecutor(String name, int threads, int queueCapacity) {
+            super(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory(name));
+            this.name = name;
+            this.queueCapacity = queueCapacity;
+            allowCoreThreadTimeOut(true);
+            setRejectedExecutionHandler((task, executor) -> {
+                rejected.increment();
+                logger.warn("Executor {} is saturated ({} queued), rejecting task.", name, executor.getQueue().size());
+                throw new RejectedExecutionException("Executor " + name + " is saturated");
+            });
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command);
+            maxQueued.accumulateAndGet(getQueue().size(), Math::max);
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            super.beforeExecute(thread, task);
+            startedAt.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable throwable) {
+            super.afterExecute(task, throwable);
+            long elapsed = System.nanoTime() - startedAt.get();
+            runNanos.add(elapsed);
+            maxRunNanos.accumulateAndGet(elapsed, Math::max);
+            completed.increment();
+            if (throwable != null) {
+                failed.increment();
+                logger.error("Uncaught exception in executor {}", name, throwable);
+            }
+        }
+
+        String describe() {
+            long count = completed.sum();
+            return String.format("active=%d/%d queued=%d/%d maxQueued=%d completed=%d failed=%d rejected=%d avgRun=%.1fms maxRun=%.1fms",
+                    getActiveCount(), getMaximumPoolSize(), getQueue().size(), queueCapacity, maxQueued.get(),
+                    count, failed.sum(), rejected.sum(),
+                    count == 0 ? 0.0 : runNanos.sum() / (double) count / 1_000_000,
+                    maxRunNanos.get() / 1_000_000.0);
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.javacord.Discord302Party.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The one HTTP client every call to Wise Old Man and GE Tracker goes through. Connections are kept alive and reused,
+ * HTTP/2 is used where the server supports it and responses are requested gzip compressed. Bodies can be decoded
+ * while they stream in with a {@link BodyDecoder} instead of being read into a String first.
+ * Requests to each API wait for a permit from its {@link RateLimiter}, so callers never have to pace themselves.
+ * Requests and failures are counted per host and reported through {@link MetricsReporter}.
+ * <p>
+ * The client runs on {@link BotExecutors#httpIo()}, not the common pool. Bodies are decoded on the calling thread by
+ * {@link #get}, and on {@link BotExecutors#http()} by {@link #getAsync}.
+ */
+public final class BotHttpClient {
+
+    private static final Logger logger = LogManager.getLogger(BotHttpClient.class);
+    private static final Dotenv dotenv = Dotenv.load();
+
+    /**
+     * Base URLs of the APIs, without a trailing slash. They can be pointed at a local stand-in with WOM_BASE_URL and
+     * GE_TRACKER_BASE_URL.
+     */
+    public static final String WOM_BASE_URL = stripTrailingSlash(dotenv.get("WOM_BASE_URL", "https://api.wiseoldman.net/v2"));
+    public static final String GE_TRACKER_BASE_URL = stripTrailingSlash(dotenv.get("GE_TRACKER_BASE_URL", "https://www.ge-tracker.com/api"));
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(Long.parseLong(dotenv.get("HTTP_CONNECT_TIMEOUT_MS", "5000")));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(Long.parseLong(dotenv.get("HTTP_REQUEST_TIMEOUT_MS", "15000")));
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(BotExecutors.httpIo())
+            .build();
+
+    private static final Map<String, HostMetrics> metricsByHost = new ConcurrentHashMap<>();
+
+    // WOM allows 20 requests a minute without an API key and 100 with one, GE Tracker isn't documented
+    private static final int RATE_LIMIT_BURST = 5;
+    private static final RateLimiter womLimiter = new RateLimiter("wom",
+            Integer.parseInt(dotenv.get("WOM_REQUESTS_PER_MINUTE", dotenv.get("WOM_API_KEY") != null ? "100" : "20")),
+            RATE_LIMIT_BURST);
+    private static final RateLimiter geTrackerLimiter = new RateLimiter("ge-tracker",
+            Integer.parseInt(dotenv.get("GE_TRACKER_REQUESTS_PER_MINUTE", "60")),
+            RATE_LIMIT_BURST);
+
+    private static final BodyDecoder<String> TEXT = body -> new String(body.readAllBytes(), StandardCharsets.UTF_8);
+
+    private BotHttpClient() {
+    }
+
+    /**
+     * Reads a response body, already decompressed, into the value the caller needs.
+     */
+    @FunctionalInterface
+    public interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Sends a GET request and returns the response body.
+     *
+     * @param url     the full URL.
+     * @param headers alternating header names and values, pairs with a null value are skipped.
+     * @throws IOException if the request fails or the response status isn't 2xx.
+     */
+    public static String get(String url, String... headers) throws IOException {
+        return get(url, TEXT, headers);
+    }
+
+    /**
+     * Sends a GET request and decodes the response body while it streams in.
+     *
+     * @throws IOException if the request or decoding fails or the response status isn't 2xx.
+     */
+    public static <T> T get(String url, BodyDecoder<T> decoder, String... headers) throws IOException {
+        HttpResponse<InputStream> response;
+        try {
+            response = send(url, headers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("GET " + url + " failed", e.getCause());
+        }
+        return decode(url, response, decoder);
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(String, String...)}. The future completes exceptionally with an
+     * {@link IOException} if the request fails or the response status isn't 2xx.
+     */
+    public static CompletableFuture<String> getAsync(String url, String... headers) {
+        return getAsync(url, TEXT, headers);
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(String, BodyDecoder, String...)}.
+     */
+    public static <T> CompletableFuture<T> getAsync(String url, BodyDecoder<T> decoder, String... headers) {
+        return send(url, headers).thenApplyAsync(response -> {
+            try {
+                return decode(url, response, decoder);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, BotExecutors.http());
+    }
+
+    // Completes with the response once its headers arrived, the body is left to decode
+    private static CompletableFuture<HttpResponse<InputStream>> send(String url, String... headers) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            // Optional headers such as an unset API key are simply left out
+            if (headers[i + 1] != null) {
+                builder.header(headers[i], headers[i + 1]);
+            }
+        }
+
+        HttpRequest request = builder.build();
+        HostMetrics metrics = metricsByHost.computeIfAbsent(uri.getHost(), HostMetrics::new);
+        RateLimiter limiter = limiterFor(url);
+        CompletableFuture<Void> permit = limiter == null
+                ? CompletableFuture.completedFuture(null) : limiter.acquireAsync(BotExecutors.httpIo());
+        return permit.thenCompose(ignored -> {
+            long started = System.nanoTime();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            metrics.recordFailure();
+                        } else {
+                            metrics.record(System.nanoTime() - started, response.statusCode());
+                        }
+                    });
+        });
+    }
+
+    private static <T> T decode(String url, HttpResponse<InputStream> response, BodyDecoder<T> decoder) throws IOException {
+        // Registered by send(), under the host asked for rather than the one redirected to
+        HostMetrics metrics = metricsByHost.get(URI.create(url).getHost());
+        try (InputStream body = metrics.count(response.body())) {
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + response.statusCode() + " from " + url);
+            }
+            return decoder.decode(isGzipped(response) ? new GZIPInputStream(body) : body);
+        }
+    }
+
+    /**
+     * Encodes a value for use as a single URL path segment, e.g. an item name typed by a user.
+     */
+    public static String encodePathSegment(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    // Picked by base URL rather than host, both APIs may be served by the same stand-in
+    private static RateLimiter limiterFor(String url) {
+        if (url.startsWith(WOM_BASE_URL)) {
+            return womLimiter;
+        }
+        if (url.startsWith(GE_TRACKER_BASE_URL)) {
+            return geTrackerLimiter;
+        }
+        return null;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static boolean isGzipped(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+    }
+
+    private static final class HostMetrics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        HostMetrics(String host) {
+            MetricsReporter.register("http-" + host, this::describe);
+            logger.info("First request to {}", host);
+        }
+
+        void record(long nanos, int status) {
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (status / 100 != 2) {
+                errors.increment();
+            }
+        }
+
+        void recordFailure() {
+            failures.increment();
+        }
+
+        // Counts the bytes received on the wire as the body is read
+        InputStream count(InputStream body) {
+            return new FilterInputStream(body) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytes.increment();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        bytes.add(read);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        String describe() {
+            long count = requests.sum();
+            return String.format("requests=%d non2xx=%d failed=%d received=%dKB avg=%.1fms max=%.1fms",
+                    count, errors.sum(), failures.sum(), bytes.sum() / 1024,
+                    count == 0 ? 0.0 : totalNanos.sum() / (double) count / 1_000_000,
+                    maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.javacord.Discord302Party.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Sends changes to Discord members (roles, nicknames) one at a time, paced per Discord route, instead of firing every
+ * request at once and leaving Javacord to sort out the rate limits.
+ * <ul>
+ *     <li>Changes are keyed, e.g. the roles of a member. A change submitted while another one with the same key is
+ *     still waiting replaces it and keeps its place in line, so only the last desired state is sent. Both callers get
+ *     the same future.</li>
+ *     <li>{@link Priority#INTERACTIVE} changes, made for someone waiting on a command, go before
+ *     {@link Priority#BACKGROUND} changes from the WOM sync or /verify_all_users.</li>
+ *     <li>Each route has its own {@link RateLimiter}, sized from {@code DISCORD_<ROUTE>_PER_MINUTE} and
+ *     {@code DISCORD_<ROUTE>_BURST}.</li>
+ *     <li>A key isn't sent again until Discord answered the previous change for it, so a change never works from
+ *     state that is about to be overwritten.</li>
+ *     <li>At most {@code DISCORD_MUTATION_QUEUE_LIMIT} changes wait at once. Background submitters block until there
+ *     is room; interactive changes are always taken.</li>
+ * </ul>
+ * The mutation is only created when it is sent, so it can work from the member's state at that moment.
+ */
+public final class DiscordMutationQueue {
+
+    private static final Logger logger = LogManager.getLogger(DiscordMutationQueue.class);
+    private static final Dotenv dotenv = Dotenv.load();
+
+    /**
+     * PATCH /guilds/{guild}/members/{user}: roles and nickname.
+     */
+    public static final String ROUTE_MEMBER = "member";
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private static final class Pending {
+        final String key;
+        final String route;
+        Supplier<CompletableFuture<?>> mutation;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Pending(String key, String route, Supplier<CompletableFuture<?>> mutation) {
+            this.key = key;
+            this.route = route;
+            this.mutation = mutation;
+        }
+    }
+
+    private static final Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+    // Keyed changes in the order they were first submitted, guarded by the class lock
+    private static final Map<String, Pending> interactive = new LinkedHashMap<>();
+    private static final Map<String, Pending> background = new LinkedHashMap<>();
+    // Keys sent and not answered yet
+    private static final Set<String> inFlight = new HashSet<>();
+    private static final int limit = Integer.parseInt(dotenv.get("DISCORD_MUTATION_QUEUE_LIMIT", "5000"));
+
+    private static long submitted;
+    private static long coalesced;
+    private static long sent;
+    private static long failed;
+    private static long throttled;
+    private static long lastReportSent;
+    private static long lastReportNanos = System.nanoTime();
+
+    static {
+        limiter(ROUTE_MEMBER);
+        MetricsReporter.register("discord-mutations", DiscordMutationQueue::describe);
+        Thread dispatcher = new Thread(DiscordMutationQueue::dispatch, "discord-mutations");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private DiscordMutationQueue() {
+    }
+
+    /**
+     * Queues a change to Discord. A background change waits while the queue is full, unless it replaces a waiting one.
+     *
+     * @param key      identifies what is changed, a waiting change with the same key is replaced. Changes with the
+     *                 same key go on the same route.
+     * @param route    the Discord route the change is sent on, e.g. {@link #ROUTE_MEMBER}.
+     * @param mutation sends the change, called on the dispatcher thread when it is the change's turn.
+     * @return completes when the change, or the one that replaced it, has been sent and answered.
+     */
+    public static synchronized CompletableFuture<Void> submit(String key, String route, Priority priority,
+                                                              Supplier<CompletableFuture<?>> mutation) {
+        submitted++;
+        boolean waited = false;
+        while (true) {
+            Pending pending = interactive.get(key);
+            if (pending == null) {
+                pending = background.get(key);
+                if (pending != null && priority == Priority.INTERACTIVE) {
+                    // Someone is waiting on it now
+                    background.remove(key);
+                    interactive.put(key, pending);
+                }
+            }
+            if (pending != null) {
+                pending.mutation = mutation;
+                coalesced++;
+                return pending.result;
+            }
+            if (priority == Priority.INTERACTIVE || getDepth() < limit || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            if (!waited) {
+                waited = true;
+                throttled++;
+                logger.warn("Discord mutation queue is full ({} waiting), holding back background changes.", getDepth());
+            }
+            try {
+                // Gives up the lock, so the key may have been queued meanwhile
+                DiscordMutationQueue.class.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Pending added = new Pending(key, route, mutation);
+        (priority == Priority.INTERACTIVE ? interactive : background).put(key, added);
+        DiscordMutationQueue.class.notifyAll();
+        return added.result;
+    }
+
+    /**
+     * Queues a nickname change.
+     */
+    public static CompletableFuture<Void> updateNickname(Server server, User user, String nickname, Priority priority) {
+        return submit("nickname:" + server.getId() + ":" + user.getId(), ROUTE_MEMBER, priority,
+                () -> user.updateNickname(server, nickname));
+    }
+
+    /**
+     * Returns how many changes are waiting to be sent.
+     */
+    public static synchronized int getDepth() {
+        return interactive.size() + background.size();
+    }
+
+    private static void dispatch() {
+        while (true) {
+            Pending pending;
+            try {
+                pending = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // The key is in flight from here on, so every way out has to finish the change
+            try {
+                limiter(pending.route).acquire();
+                pending.mutation.get().whenComplete((result, e) -> finish(pending, e));
+            } catch (InterruptedException e) {
+                finish(pending, e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // Including errors, this is the only thread sending changes and it has to keep going
+                finish(pending, e);
+            }
+        }
+    }
+
+    private static void finish(Pending pending, Throwable e) {
+        synchronized (DiscordMutationQueue.class) {
+            if (e != null) {
+                failed++;
+            } else {
+                sent++;
+            }
+            inFlight.remove(pending.key);
+            DiscordMutationQueue.class.notifyAll();
+        }
+        if (e != null) {
+            logger.warn("Discord mutation on route {} failed: {}", pending.route, e.getMessage());
+            pending.result.completeExceptionally(e);
+        } else {
+            pending.result.complete(null);
+        }
+    }
+
+    private static synchronized Pending take() throws InterruptedException {
+        while (true) {
+            Pending pending = next(interactive);
+            if (pending == null) {
+                pending = next(background);
+            }
+            if (pending != null) {
+                inFlight.add(pending.key);
+                // Room for a background submitter
+                DiscordMutationQueue.class.notifyAll();
+                return pending;
+            }
+            DiscordMutationQueue.class.wait();
+        }
+    }
+
+    // Removes and returns the oldest change whose key isn't in flight
+    private static Pending next(Map<String, Pending> changes) {
+        Iterator<Pending> iterator = changes.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (!inFlight.contains(pending.key)) {
+                iterator.remove();
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    private static synchronized RateLimiter limiter(String route) {
+        return limiters.computeIfAbsent(route, name -> {
+            String prefix = "DISCORD_" + name.toUpperCase(Locale.ROOT).replace('-', '_');
+            // Discord allows about 10 member updates per 10 seconds per guild
+            return new RateLimiter("discord-" + name,
+                    Integer.parseInt(dotenv.get(prefix + "_PER_MINUTE", "50")),
+                    Integer.parseInt(dotenv.get(prefix + "_BURST", "5")));
+        });
+    }
+
+    private static synchronized String describe() {
+        long now = System.nanoTime();
+        double drainRate = (sent + failed - lastReportSent) / Math.max(1e-9, (now - lastReportNanos) / 1e9);
+        lastReportSent = sent + failed;
+        lastReportNanos = now;
+        return String.format("interactive=%d background=%d inFlight=%d limit=%d submitted=%d coalesced=%d throttled=%d "
+                        + "sent=%d failed=%d drainRate=%.2f/s", interactive.size(), background.size(), inFlight.size(),
+                limit, submitted, coalesced, throttled, sent, failed, drainRate);
+    }
+}
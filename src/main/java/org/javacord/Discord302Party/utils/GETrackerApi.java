@@ -6,41 +6,23 @@ import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 
 public class GETrackerApi {
 
     private static final Logger logger = LogManager.getLogger(GETrackerApi.class);
     private static final Dotenv dotenv = Dotenv.load();
     private static final String API_KEY = dotenv.get("GE_TRACKER_API_KEY");
-    private static final String BASE_URL = "https://www.ge-tracker.com/api/";
+    private static final String BASE_URL = BotHttpClient.GE_TRACKER_BASE_URL + "/";
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
 
     // Method to fetch highest margins
     public static String fetchHighestMargins() {
         try {
-            String apiUrl = "https://www.ge-tracker.com/api/highest-margins";
-
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            conn.setRequestProperty("Accept", "application/x.getracker.v2.1+json");
-
-            // Read the response
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            in.close();
+            String apiUrl = BASE_URL + "highest-margins";
 
-            return response.toString();
+            return get(apiUrl);
 
         } catch (Exception e) {
             logger.error("Error fetching highest margins from GE Tracker API", e);
@@ -51,25 +33,12 @@ public class GETrackerApi {
     // Method to search item by name and return item ID
     public static String fetchItemIdByName(String itemName) {
         try {
-            String apiUrl = "https://www.ge-tracker.com/api/items/search/" + itemName;
-
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            conn.setRequestProperty("Accept", "application/x.getracker.v2.1+json");
-
-            // Read the response
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            in.close();
+            String apiUrl = BASE_URL + "items/search/" + BotHttpClient.encodePathSegment(itemName);
+
+            String response = get(apiUrl);
 
             // Parse the response and get the item ID
-            JsonNode rootNode = objectMapper.readTree(response.toString());
+            JsonNode rootNode = objectMapper.readTree(response);
             JsonNode dataNode = rootNode.get("data");
 
             if (dataNode.isArray()) {
@@ -94,25 +63,10 @@ public class GETrackerApi {
     // Method to fetch detailed item data by item ID
     public static String fetchItemData(int itemId) {
         try {
-            String apiUrl = "https://www.ge-tracker.com/api/items/" + itemId;
-
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            conn.setRequestProperty("Accept", "application/x.getracker.v2.1+json");
-
-            // Read the response
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            in.close();
+            String apiUrl = BASE_URL + "items/" + itemId;
 
             // Return the full response as item data
-            return response.toString();
+            return get(apiUrl);
 
         } catch (Exception e) {
             logger.error("Error fetching item data from GE Tracker API", e);
@@ -123,29 +77,20 @@ public class GETrackerApi {
     // Method to fetch blast furnace data
     public static String fetchBlastFurnaceData() {
         try {
-            String apiUrl = "https://www.ge-tracker.com/api/blast-furnace";
-
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            conn.setRequestProperty("Accept", "application/x.getracker.v2.1+json");
-
-            // Read the response
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            in.close();
+            String apiUrl = BASE_URL + "blast-furnace";
 
             // Return the raw JSON response
-            return response.toString();
+            return get(apiUrl);
 
         } catch (Exception e) {
             logger.error("Error fetching blast furnace data from GE Tracker API", e);
             return null;
         }
     }
+
+    private static String get(String url) throws IOException {
+        return BotHttpClient.get(url,
+                "Authorization", "Bearer " + API_KEY,
+                "Accept", "application/x.getracker.v2.1+json");
+    }
 }
@@ -0,0 +1,67 @@
+package org.javacord.Discord302Party.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Periodically logs the statistics of the shared components (connection pool, executors, caches, ...).
+ * Components register a supplier once and the reporter logs one line per component every interval.
+ */
+public final class MetricsReporter {
+
+    private static final Logger logger = LogManager.getLogger(MetricsReporter.class);
+    private static final Dotenv dotenv = Dotenv.load();
+    private static final long REPORT_INTERVAL = Long.parseLong(dotenv.get("METRICS_INTERVAL", "300")) * 1000;
+
+    private static final Map<String, Supplier<String>> sources = new ConcurrentSkipListMap<>();
+    private static Timer timer;
+
+    private MetricsReporter() {
+    }
+
+    /**
+     * Registers a metrics source. Registering the same name twice replaces the previous source.
+     *
+     * @param name   the name the statistics are logged under.
+     * @param source supplies a one-line summary of the current statistics.
+     */
+    public static void register(String name, Supplier<String> source) {
+        sources.put(name, source);
+    }
+
+    /**
+     * Starts logging the registered sources every {@code METRICS_INTERVAL} seconds.
+     */
+    public static synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = new Timer("metrics-reporter", true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, REPORT_INTERVAL, REPORT_INTERVAL);
+    }
+
+    /**
+     * Logs the current statistics of every registered source.
+     */
+    public static void report() {
+        sources.forEach((name, source) -> {
+            try {
+                logger.info("[{}] {}", name, source.get());
+            } catch (Exception e) {
+                logger.warn("Failed to collect metrics for {}", name, e);
+            }
+        });
+    }
+}
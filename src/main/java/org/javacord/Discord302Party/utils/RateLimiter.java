@@ -0,0 +1,87 @@
+package org.javacord.Discord302Party.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket: up to {@code burst} permits are available at once and they refill at a steady rate. Permits are
+ * reserved up front, so concurrent callers are queued one interval apart instead of all retrying at the same moment.
+ */
+public final class RateLimiter {
+
+    private final String name;
+    private final long nanosPerPermit;
+    private final long burstNanos;
+
+    // When the bucket would be full again if no more permits were taken
+    private long fullAtNanos;
+
+    private long acquired;
+    private long delayed;
+    private long totalDelayNanos;
+
+    /**
+     * @param name              used in the metrics report.
+     * @param permitsPerMinute  the sustained rate.
+     * @param burst             how many permits can be used back to back after the bucket has been idle.
+     */
+    public RateLimiter(String name, int permitsPerMinute, int burst) {
+        this.name = name;
+        this.nanosPerPermit = TimeUnit.MINUTES.toNanos(1) / Math.max(1, permitsPerMinute);
+        this.burstNanos = nanosPerPermit * Math.max(1, burst);
+        this.fullAtNanos = System.nanoTime();
+        MetricsReporter.register("ratelimit-" + name, this::describe);
+    }
+
+    /**
+     * Reserves a permit and returns how long, in nanoseconds, the caller has to wait before using it.
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        // An idle bucket doesn't fill beyond the burst size
+        long fullAt = Math.max(fullAtNanos, now);
+        long wait = Math.max(0, fullAt + nanosPerPermit - burstNanos - now);
+        fullAtNanos = fullAt + nanosPerPermit;
+
+        acquired++;
+        if (wait > 0) {
+            delayed++;
+            totalDelayNanos += wait;
+        }
+        return wait;
+    }
+
+    /**
+     * Blocks until a permit is available.
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Completes once a permit is available, without holding a thread while waiting.
+     *
+     * @param executor completes the future after a wait, and so runs the stages that don't ask for another executor.
+     */
+    public CompletableFuture<Void> acquireAsync(Executor executor) {
+        long wait = reserve();
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, executor));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private synchronized String describe() {
+        return String.format("acquired=%d delayed=%d avgDelay=%.1fms",
+                acquired, delayed, delayed == 0 ? 0.0 : totalDelayNanos / (double) delayed / 1_000_000);
+    }
+}
@@ -1,7 +1,27 @@
 package org.javacord.Discord302Party.utils;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 public class Utils {
 
+    private static final Pattern NAME_SEPARATORS = Pattern.compile("[\\s_\\-\\u00A0]+");
+
+    /**
+     * Returns the canonical form of an OSRS character name, used to match names regardless of how they were typed.
+     * OSRS treats spaces, underscores and hyphens in names as the same character and names are case-insensitive,
+     * so "Some_Name", "some-name" and " SOME  NAME " all become "some name".
+     *
+     * @param name the character name as typed or as returned by Wise Old Man.
+     * @return the canonical name, or null if the name is null.
+     */
+    public static String canonicalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return NAME_SEPARATORS.matcher(name.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
     /**
      * Parses the time requirement string and returns the equivalent time in days.
      *